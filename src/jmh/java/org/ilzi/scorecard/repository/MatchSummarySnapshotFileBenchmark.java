@@ -0,0 +1,60 @@
+package org.ilzi.scorecard.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to write and to restore a board of {@code boardSize} matches through a local snapshot file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MatchSummarySnapshotFileBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int boardSize;
+
+    private MatchSummaryRepository repository;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        repository = new MatchSummaryRepository();
+        for (int i = 0; i < boardSize; i++) {
+            final var matchId = repository.create("home" + i, "away" + i);
+            repository.updateScore(matchId, i % 7, i % 5);
+        }
+        file = Files.createTempFile("scoreboard", ".snapshot");
+        MatchSummarySnapshotFile.write(repository.getSnapshot(), file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        MatchSummarySnapshotFile.write(repository.getSnapshot(), file);
+    }
+
+    @Benchmark
+    public MatchSummaryRepository restore() throws IOException {
+        final var restored = new MatchSummaryRepository();
+        MatchSummarySnapshotFile.restore(file, restored);
+        return restored;
+    }
+}
@@ -0,0 +1,52 @@
+package org.ilzi.scorecard.service;
+
+import org.ilzi.scorecard.model.MatchSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MatchSummaryServiceBenchmark {
+
+    /**
+     * Starts a match and ends it straight away, so the board keeps its configured size across iterations.
+     */
+    @Benchmark
+    public void startAndEndMatch(Scoreboard scoreboard, ScoreboardWriter writer) {
+        final var matchId = writer.startMatch(scoreboard);
+        scoreboard.service.endMatch(matchId);
+    }
+
+    @Benchmark
+    public void updateScore(Scoreboard scoreboard, ScoreboardWriter writer) {
+        writer.updateScore(scoreboard);
+    }
+
+    /**
+     * A burst of 50 corrections applied as one batch; compare with 50 x {@link #updateScore}.
+     */
+    @Benchmark
+    public void updateScores(Scoreboard scoreboard, ScoreboardWriter writer) {
+        writer.updateScores(scoreboard, 50);
+    }
+
+    @Benchmark
+    public List<MatchSummary> getAllMatchSummaries(Scoreboard scoreboard) {
+        return scoreboard.service.getAllMatchSummaries();
+    }
+
+    @Benchmark
+    public List<MatchSummary> getTop(Scoreboard scoreboard) {
+        return scoreboard.service.getTop(5);
+    }
+
+    @Benchmark
+    public List<MatchSummary> getPage(Scoreboard scoreboard) {
+        return scoreboard.service.getPage(scoreboard.boardSize / 2, 20);
+    }
+}
@@ -0,0 +1,35 @@
+package org.ilzi.scorecard.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixed workload: every operation is a summary read with probability {@code readPercent}, otherwise a score
+ * update. Run with several threads ({@code -Pjmh.threads=N}) to see how readers and writers interfere.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MatchSummaryServiceReadWriteBenchmark {
+
+    @Param({"50", "90", "99"})
+    public int readPercent;
+
+    @Benchmark
+    public void readWrite(Scoreboard scoreboard, ScoreboardWriter writer, Blackhole blackhole) {
+        if (ThreadLocalRandom.current().nextInt(100) < readPercent) {
+            blackhole.consume(scoreboard.service.getAllMatchSummaries());
+        } else {
+            writer.updateScore(scoreboard);
+        }
+    }
+}
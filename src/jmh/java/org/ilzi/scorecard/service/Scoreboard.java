@@ -0,0 +1,44 @@
+package org.ilzi.scorecard.service;
+
+import org.ilzi.scorecard.metrics.RecordingMetrics;
+import org.ilzi.scorecard.metrics.ScoreboardMetrics;
+import org.ilzi.scorecard.repository.HeapMatchStore;
+import org.ilzi.scorecard.repository.MatchSummaryRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A service pre-populated with {@code boardSize} matches on {@code shards} shards, shared by all benchmark threads of
+ * a trial. {@code metrics} compares the repository without measurements against one recording into
+ * {@link RecordingMetrics}.
+ */
+@State(Scope.Benchmark)
+public class Scoreboard {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int boardSize;
+
+    @Param({"1", "8"})
+    public int shards;
+
+    @Param({"none", "recording"})
+    public String metrics;
+
+    MatchSummaryService service;
+    String[] matchIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final var lockStripes = Runtime.getRuntime().availableProcessors() * 4;
+        final var repositoryMetrics = metrics.equals("recording") ? new RecordingMetrics() : ScoreboardMetrics.NONE;
+        service = new MatchSummaryService(
+            new MatchSummaryRepository(new HeapMatchStore(), lockStripes, shards, repositoryMetrics));
+        matchIds = new String[boardSize];
+        for (int i = 0; i < boardSize; i++) {
+            matchIds[i] = service.startMatch("home" + i, "away" + i);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.ilzi.scorecard.service;
+
+import org.ilzi.scorecard.model.ScoreUpdate;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.ArrayList;
+
+import static org.ilzi.scorecard.model.ScoreUpdate.scoreUpdate;
+
+/**
+ * Per-thread writer. Each thread owns the matches whose index is congruent to its thread index, so concurrent
+ * writers never race on the same match and scores only ever grow, as {@code updateScore} requires.
+ */
+@State(Scope.Thread)
+public class ScoreboardWriter {
+
+    private int threadIndex;
+    private int threadCount;
+    private int nextMatch;
+    private int score;
+    private long startedMatches;
+
+    @Setup(Level.Trial)
+    public void setUp(ThreadParams threadParams) {
+        threadIndex = threadParams.getThreadIndex();
+        threadCount = threadParams.getThreadCount();
+        nextMatch = threadIndex;
+    }
+
+    void updateScore(Scoreboard scoreboard) {
+        final var update = nextScoreUpdate(scoreboard);
+        if (update != null) {
+            scoreboard.service.updateScore(update.matchId, update.homeTeamScore, update.awayTeamScore);
+        }
+    }
+
+    void updateScores(Scoreboard scoreboard, int batchSize) {
+        final var updates = new ArrayList<ScoreUpdate>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            final var update = nextScoreUpdate(scoreboard);
+            if (update != null) {
+                updates.add(update);
+            }
+        }
+        scoreboard.service.updateScores(updates);
+    }
+
+    private ScoreUpdate nextScoreUpdate(Scoreboard scoreboard) {
+        if (nextMatch >= scoreboard.boardSize) {
+            nextMatch = threadIndex;
+            score++;
+        }
+        final var matchIndex = nextMatch;
+        nextMatch += threadCount;
+        return matchIndex < scoreboard.boardSize ? scoreUpdate(scoreboard.matchIds[matchIndex], score, 0) : null;
+    }
+
+    String startMatch(Scoreboard scoreboard) {
+        return scoreboard.service.startMatch("bench" + threadIndex + "_" + startedMatches++, "bench");
+    }
+}
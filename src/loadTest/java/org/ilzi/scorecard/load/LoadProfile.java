@@ -0,0 +1,131 @@
+package org.ilzi.scorecard.load;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Shape of a simulated match day. Matches kick off in waves of {@code kickoffWaveSize} every {@code kickoffInterval}
+ * and end {@code matchLength} later; while live, each match scores as a Poisson process with
+ * {@code goalsPerMatchPerSecond}. {@code pollers} readers each read the board every {@code pollInterval} and
+ * {@code longPollers} wait for every change.
+ * <p>
+ * A named profile is picked with {@code -DloadTest.profile=<name>}; any field can then be overridden with
+ * {@code -DloadTest.<field>=<value>}, durations in ISO-8601 ({@code PT90M}) or milliseconds.
+ */
+public final class LoadProfile {
+
+    private static final Map<String, LoadProfile> PROFILES = Map.of(
+        "smoke", new LoadProfile("smoke", Duration.ofSeconds(30), Duration.ofSeconds(5),
+            50, Duration.ofSeconds(5), Duration.ofSeconds(20), 0.5, 2, 200, Duration.ofMillis(250), 20),
+        "peak", new LoadProfile("peak", Duration.ofMinutes(90), Duration.ofSeconds(30),
+            500, Duration.ofMinutes(15), Duration.ofMinutes(45), 0.02, 4, 5_000, Duration.ofMillis(500), 500),
+        "stress", new LoadProfile("stress", Duration.ofMinutes(5), Duration.ofSeconds(10),
+            2_000, Duration.ofSeconds(30), Duration.ofMinutes(2), 2.0, 8, 2_000, Duration.ofMillis(100), 200));
+
+    public final String name;
+    public final Duration duration;
+    public final Duration reportInterval;
+    public final int kickoffWaveSize;
+    public final Duration kickoffInterval;
+    public final Duration matchLength;
+    public final double goalsPerMatchPerSecond;
+    public final int writers;
+    public final int pollers;
+    public final Duration pollInterval;
+    public final int longPollers;
+
+    public LoadProfile(String name,
+                       Duration duration,
+                       Duration reportInterval,
+                       int kickoffWaveSize,
+                       Duration kickoffInterval,
+                       Duration matchLength,
+                       double goalsPerMatchPerSecond,
+                       int writers,
+                       int pollers,
+                       Duration pollInterval,
+                       int longPollers) {
+        this.name = requireNonNull(name);
+        this.duration = requirePositive("duration", duration);
+        this.reportInterval = requirePositive("reportInterval", reportInterval);
+        this.kickoffWaveSize = requireNotNegative("kickoffWaveSize", kickoffWaveSize);
+        this.kickoffInterval = requirePositive("kickoffInterval", kickoffInterval);
+        this.matchLength = requirePositive("matchLength", matchLength);
+        if (!(goalsPerMatchPerSecond > 0.0)) {
+            throw new IllegalArgumentException(
+                "goalsPerMatchPerSecond must be positive, but is %s".formatted(goalsPerMatchPerSecond));
+        }
+        this.goalsPerMatchPerSecond = goalsPerMatchPerSecond;
+        this.writers = Math.max(1, writers);
+        this.pollers = requireNotNegative("pollers", pollers);
+        this.pollInterval = requirePositive("pollInterval", pollInterval);
+        this.longPollers = requireNotNegative("longPollers", longPollers);
+    }
+
+    /**
+     * Returns the profile named by {@code loadTest.profile} (default {@code smoke}) with the overrides given as
+     * system properties.
+     */
+    public static LoadProfile fromSystemProperties() {
+        final var name = System.getProperty("loadTest.profile", "smoke");
+        final var profile = PROFILES.get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException(
+                "Unknown profile %s, expected one of %s".formatted(name, PROFILES.keySet()));
+        }
+        return new LoadProfile(name,
+            property("duration", LoadProfile::duration, profile.duration),
+            property("reportInterval", LoadProfile::duration, profile.reportInterval),
+            property("kickoffWaveSize", Integer::valueOf, profile.kickoffWaveSize),
+            property("kickoffInterval", LoadProfile::duration, profile.kickoffInterval),
+            property("matchLength", LoadProfile::duration, profile.matchLength),
+            property("goalsPerMatchPerSecond", Double::valueOf, profile.goalsPerMatchPerSecond),
+            property("writers", Integer::valueOf, profile.writers),
+            property("pollers", Integer::valueOf, profile.pollers),
+            property("pollInterval", LoadProfile::duration, profile.pollInterval),
+            property("longPollers", Integer::valueOf, profile.longPollers));
+    }
+
+    private static <T> T property(String field, Function<String, T> parser, T defaultValue) {
+        final var value = System.getProperty("loadTest." + field);
+        return value == null || value.isBlank() ? defaultValue : parser.apply(value.trim());
+    }
+
+    private static Duration duration(String value) {
+        return value.startsWith("P") ? Duration.parse(value) : Duration.ofMillis(Long.parseLong(value));
+    }
+
+    private static Duration requirePositive(String field, Duration value) {
+        if (value.isNegative() || value.isZero()) {
+            throw new IllegalArgumentException("%s must be positive, but is %s".formatted(field, value));
+        }
+        return value;
+    }
+
+    private static int requireNotNegative(String field, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("%s must not be negative, but is %d".formatted(field, value));
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadProfile{" +
+            "name='" + name + '\'' +
+            ", duration=" + duration +
+            ", reportInterval=" + reportInterval +
+            ", kickoffWaveSize=" + kickoffWaveSize +
+            ", kickoffInterval=" + kickoffInterval +
+            ", matchLength=" + matchLength +
+            ", goalsPerMatchPerSecond=" + goalsPerMatchPerSecond +
+            ", writers=" + writers +
+            ", pollers=" + pollers +
+            ", pollInterval=" + pollInterval +
+            ", longPollers=" + longPollers +
+            '}';
+    }
+}
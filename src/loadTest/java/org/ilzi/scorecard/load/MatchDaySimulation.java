@@ -0,0 +1,376 @@
+package org.ilzi.scorecard.load;
+
+import org.ilzi.scorecard.metrics.LatencyHistogram;
+import org.ilzi.scorecard.model.Fixture;
+import org.ilzi.scorecard.service.BoardPayloadCache;
+import org.ilzi.scorecard.service.MatchSummaryService;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.ilzi.scorecard.model.Fixture.fixture;
+
+/**
+ * Drives a {@link MatchSummaryService} through a {@link LoadProfile}: kickoff and final whistle waves, Poisson
+ * distributed goals and a fleet of pollers and long-pollers. Every {@code reportInterval} it prints the throughput
+ * and p99 latency of each operation over the interval, and at the end p50/p99/p99.9/max over the whole run.
+ * <p>
+ * Goal latencies are measured from the time the goal was due, not from when the writer got to it, so a writer that
+ * falls behind shows up in the latencies instead of silently lowering the load.
+ * <p>
+ * Run with {@code ./gradlew matchDay -PloadTest.profile=peak}; {@code -PloadTest.report=<file>} also writes the
+ * interval rows as CSV.
+ */
+public final class MatchDaySimulation {
+
+    enum Operation {
+        START_MATCHES,
+        END_MATCHES,
+        UPDATE_SCORE,
+        GET_ALL,
+        GET_TOP,
+        GET_ALL_IF_CHANGED,
+        GET_PAYLOAD,
+        AWAIT_CHANGE
+    }
+
+    private final LoadProfile profile;
+    private final MatchSummaryService service;
+    private final OperationStats[] stats = new OperationStats[Operation.values().length];
+    private final List<Writer> writers = new ArrayList<>();
+    private volatile boolean running = true;
+    private volatile long lastWriteNanos;
+    private long nextMatch;
+
+    MatchDaySimulation(LoadProfile profile, MatchSummaryService service) {
+        this.profile = profile;
+        this.service = service;
+        for (final var operation : Operation.values()) {
+            stats[operation.ordinal()] = new OperationStats();
+        }
+        for (int i = 0; i < profile.writers; i++) {
+            writers.add(new Writer());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final var profile = LoadProfile.fromSystemProperties();
+        final var report = System.getProperty("loadTest.report");
+        System.out.println(profile);
+        new MatchDaySimulation(profile, new MatchSummaryService())
+            .run(report == null || report.isBlank() ? null : Path.of(report));
+    }
+
+    void run(Path report) throws IOException, InterruptedException {
+        final var threads = new ArrayList<Thread>();
+        threads.add(thread("referee", this::referee));
+        for (int i = 0; i < writers.size(); i++) {
+            threads.add(thread("writer-" + i, writers.get(i)));
+        }
+        for (int i = 0; i < profile.longPollers; i++) {
+            threads.add(thread("long-poller-" + i, this::longPoll));
+        }
+        final var pollers = schedulePollers();
+        threads.forEach(Thread::start);
+
+        try (var csv = report == null ? null : csv(report)) {
+            printHeader(csv);
+            final var start = System.nanoTime();
+            final var end = start + profile.duration.toNanos();
+            var previous = start;
+            while (previous < end) {
+                final var next = Math.min(end, previous + profile.reportInterval.toNanos());
+                sleepUntil(next, () -> true);
+                final var now = System.nanoTime();
+                printInterval(csv, now - start, now - previous);
+                previous = now;
+            }
+            running = false;
+            pollers.shutdownNow();
+            for (final var thread : threads) {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            }
+            printSummary(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Starts a wave of matches every {@code kickoffInterval} and ends every wave {@code matchLength} after its
+     * kickoff, both as bulk operations.
+     */
+    private void referee() {
+        final var waves = new ArrayDeque<Wave>();
+        var nextKickoff = System.nanoTime();
+        while (running) {
+            final var now = System.nanoTime();
+            if (now >= nextKickoff) {
+                waves.add(kickoff(nextKickoff + profile.matchLength.toNanos()));
+                nextKickoff += profile.kickoffInterval.toNanos();
+            }
+            while (!waves.isEmpty() && waves.peek().endNanos <= now) {
+                finalWhistle(waves.poll());
+            }
+            sleepUntil(waves.isEmpty() ? nextKickoff : Math.min(nextKickoff, waves.peek().endNanos), () -> running);
+        }
+    }
+
+    private Wave kickoff(long endNanos) {
+        final var fixtures = new ArrayList<Fixture>(profile.kickoffWaveSize);
+        for (int i = 0; i < profile.kickoffWaveSize; i++, nextMatch++) {
+            fixtures.add(fixture("Home" + nextMatch, "Away" + nextMatch));
+        }
+        final var start = System.nanoTime();
+        lastWriteNanos = start;
+        final var result = service.startMatches(fixtures);
+        stats(Operation.START_MATCHES).record(System.nanoTime() - start, result.failed.size());
+        final var matchIds = new ArrayList<String>(result.succeeded.size());
+        for (final var fixture : result.succeeded) {
+            final var matchId = fixture.matchId();
+            matchIds.add(matchId);
+            writers.get(Math.floorMod(matchId.hashCode(), writers.size())).kickedOff.add(matchId);
+        }
+        return new Wave(endNanos, matchIds);
+    }
+
+    private void finalWhistle(Wave wave) {
+        final var start = System.nanoTime();
+        lastWriteNanos = start;
+        final var result = service.endMatches(wave.matchIds);
+        stats(Operation.END_MATCHES).record(System.nanoTime() - start, result.failed.size());
+    }
+
+    private ScheduledExecutorService schedulePollers() {
+        final var pollers = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                final var thread = new Thread(runnable, "poller");
+                thread.setDaemon(true);
+                return thread;
+            });
+        final var interval = profile.pollInterval.toNanos();
+        for (int i = 0; i < profile.pollers; i++) {
+            pollers.scheduleAtFixedRate(new Poller(Operation.values()[Operation.GET_ALL.ordinal() + i % 4]),
+                ThreadLocalRandom.current().nextLong(interval), interval, TimeUnit.NANOSECONDS);
+        }
+        return pollers;
+    }
+
+    /**
+     * Waits for every change and records how long after the start of the last write the long-poller woke up.
+     */
+    private void longPoll() {
+        var version = -1L;
+        try {
+            while (running) {
+                final var board = service.awaitChange(version, Duration.ofSeconds(1));
+                if (board.isPresent()) {
+                    if (version != -1L) {
+                        stats(Operation.AWAIT_CHANGE).record(System.nanoTime() - lastWriteNanos, 0);
+                    }
+                    version = board.get().version();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private OperationStats stats(Operation operation) {
+        return stats[operation.ordinal()];
+    }
+
+    private void printHeader(PrintWriter csv) {
+        final var console = new StringBuilder("%8s %6s".formatted("time[s]", "live"));
+        final var header = new StringBuilder("elapsedSeconds,liveMatches");
+        for (final var operation : Operation.values()) {
+            final var name = operation.name().toLowerCase();
+            console.append(" %22s".formatted(name));
+            header.append(',').append(name).append("_perSecond,").append(name).append("_p99Micros");
+        }
+        System.out.println("every %s: ops/s and p99 latency per operation".formatted(profile.reportInterval));
+        System.out.println(console);
+        if (csv != null) {
+            csv.println(header);
+        }
+    }
+
+    private void printInterval(PrintWriter csv, long elapsedNanos, long intervalNanos) {
+        final var live = service.getAllMatchSummaries().size();
+        final var elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(elapsedNanos);
+        final var console = new StringBuilder("%8d %6d".formatted(elapsedSeconds, live));
+        final var row = new StringBuilder().append(elapsedSeconds).append(',').append(live);
+        for (final var operation : Operation.values()) {
+            final var interval = stats(operation).rollInterval();
+            final var perSecond = interval.count() * 1_000_000_000L / intervalNanos;
+            final var p99 = TimeUnit.NANOSECONDS.toMicros(interval.percentile(99.0));
+            console.append(" %22s".formatted("%d/s %dus".formatted(perSecond, p99)));
+            row.append(',').append(perSecond).append(',').append(p99);
+        }
+        System.out.println(console);
+        if (csv != null) {
+            csv.println(row);
+            csv.flush();
+        }
+    }
+
+    private void printSummary(long elapsedNanos) {
+        System.out.printf("%n%-20s %10s %8s %10s %10s %10s %10s %10s%n",
+            "operation", "count", "failed", "ops/s", "p50[us]", "p99[us]", "p99.9[us]", "max[us]");
+        for (final var operation : Operation.values()) {
+            final var stats = stats(operation);
+            final var total = stats.total;
+            System.out.printf("%-20s %10d %8d %10d %10d %10d %10d %10d%n",
+                operation.name().toLowerCase(),
+                total.count(),
+                stats.failed.sum(),
+                total.count() * 1_000_000_000L / elapsedNanos,
+                TimeUnit.NANOSECONDS.toMicros(total.percentile(50.0)),
+                TimeUnit.NANOSECONDS.toMicros(total.percentile(99.0)),
+                TimeUnit.NANOSECONDS.toMicros(total.percentile(99.9)),
+                TimeUnit.NANOSECONDS.toMicros(total.max()));
+        }
+    }
+
+    private static PrintWriter csv(Path report) throws IOException {
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        return new PrintWriter(Files.newBufferedWriter(report));
+    }
+
+    private static Thread thread(String name, Runnable runnable) {
+        final var thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void sleepUntil(long deadlineNanos, BooleanSupplier running) {
+        for (var now = System.nanoTime(); now < deadlineNanos && running.getAsBoolean(); now = System.nanoTime()) {
+            LockSupport.parkNanos(Math.min(deadlineNanos - now, TimeUnit.MILLISECONDS.toNanos(100)));
+        }
+    }
+
+    /**
+     * Scores goals in the matches it owns. Goals arrive as a Poisson process whose rate follows the number of live
+     * matches; a goal in a match that has ended in the meantime counts as failed and retires the match.
+     */
+    private final class Writer implements Runnable {
+
+        final Queue<String> kickedOff = new ConcurrentLinkedQueue<>();
+        private final List<LiveMatch> live = new ArrayList<>();
+
+        @Override
+        public void run() {
+            final var random = ThreadLocalRandom.current();
+            final var updateScore = stats(Operation.UPDATE_SCORE);
+            var due = System.nanoTime();
+            while (running) {
+                for (var matchId = kickedOff.poll(); matchId != null; matchId = kickedOff.poll()) {
+                    live.add(new LiveMatch(matchId));
+                }
+                if (live.isEmpty()) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                    due = System.nanoTime();
+                    continue;
+                }
+                final var rate = live.size() * profile.goalsPerMatchPerSecond;
+                due += (long) (-Math.log(1.0 - random.nextDouble()) / rate * 1_000_000_000L);
+                sleepUntil(due, () -> running);
+                final var index = random.nextInt(live.size());
+                final var match = live.get(index);
+                if (random.nextBoolean()) {
+                    match.homeTeamScore++;
+                } else {
+                    match.awayTeamScore++;
+                }
+                try {
+                    lastWriteNanos = System.nanoTime();
+                    service.updateScore(match.id, match.homeTeamScore, match.awayTeamScore);
+                    updateScore.record(System.nanoTime() - due, 0);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    updateScore.failed.increment();
+                    live.set(index, live.get(live.size() - 1));
+                    live.remove(live.size() - 1);
+                }
+            }
+        }
+    }
+
+    private final class Poller implements Runnable {
+
+        private final Operation operation;
+        private final OperationStats stats;
+        private long version = -1L;
+
+        Poller(Operation operation) {
+            this.operation = operation;
+            this.stats = stats(operation);
+        }
+
+        @Override
+        public void run() {
+            final var start = System.nanoTime();
+            switch (operation) {
+                case GET_ALL -> service.getAllMatchSummaries().size();
+                case GET_TOP -> service.getTop(10).size();
+                case GET_ALL_IF_CHANGED -> service.getAllIfChanged(version)
+                    .ifPresent(snapshot -> version = snapshot.version());
+                case GET_PAYLOAD -> service.getAllMatchSummariesPayload(BoardPayloadCache.Format.JSON).remaining();
+                default -> throw new IllegalStateException("Unexpected poller operation %s".formatted(operation));
+            }
+            stats.record(System.nanoTime() - start, 0);
+        }
+    }
+
+    private static final class LiveMatch {
+
+        final String id;
+        int homeTeamScore;
+        int awayTeamScore;
+
+        LiveMatch(String id) {
+            this.id = id;
+        }
+    }
+
+    private record Wave(long endNanos, List<String> matchIds) {
+    }
+
+    /**
+     * Latencies of one operation over the whole run and over the current report interval.
+     */
+    private static final class OperationStats {
+
+        final LatencyHistogram total = new LatencyHistogram();
+        final LongAdder failed = new LongAdder();
+        private volatile LatencyHistogram interval = new LatencyHistogram();
+
+        void record(long nanos, int failures) {
+            total.record(nanos);
+            interval.record(nanos);
+            if (failures != 0) {
+                failed.add(failures);
+            }
+        }
+
+        LatencyHistogram rollInterval() {
+            final var finished = interval;
+            interval = new LatencyHistogram();
+            return finished;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.ilzi.scorecard.server;
+
+import org.ilzi.scorecard.metrics.LatencyHistogram;
+import org.ilzi.scorecard.service.MatchSummaryService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Opens many idle SSE streams against an in-process {@link ScoreboardServer}, then updates a score at a fixed rate
+ * and reports how long each change took to reach all streams.
+ * <p>
+ * Run with {@code ./gradlew serverLoadTest -PloadTest.connections=20000 -PloadTest.updates=200}. Every stream needs
+ * a file descriptor on both ends, so raise {@code ulimit -n} accordingly.
+ */
+public final class ServerLoadTest {
+
+    private static final byte[] CHANGE = "event: change".getBytes(US_ASCII);
+
+    public static void main(String[] args) throws Exception {
+        final var connections = Integer.getInteger("loadTest.connections", 10_000);
+        final var updates = Integer.getInteger("loadTest.updates", 100);
+        final var interval = Duration.ofMillis(Long.getLong("loadTest.updateIntervalMillis", 50L));
+
+        final var service = new MatchSummaryService();
+        final var matchId = service.startMatch("Home", "Away");
+        try (var server = ScoreboardServer.start(service, new InetSocketAddress("localhost", 0));
+             var selector = Selector.open()) {
+            final var streams = new Stream[connections];
+            final var connectStart = System.nanoTime();
+            for (int i = 0; i < connections; i++) {
+                streams[i] = Stream.open(selector, server.port());
+                if (i % 1_000 == 999) {
+                    poll(selector, 0, null, null);
+                }
+            }
+            while (server.streams() < connections) {
+                poll(selector, 10, null, null);
+            }
+            System.out.printf("%d streams open after %d ms, %d MB heap used%n", connections,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart), usedHeapMegabytes());
+
+            final var sentAt = new long[updates];
+            final var fanOut = new LatencyHistogram();
+            final var completeAt = new long[updates];
+            var nextUpdate = System.nanoTime();
+            for (int update = 0; update < updates; update++) {
+                while (System.nanoTime() < nextUpdate) {
+                    poll(selector, 1, sentAt, fanOut);
+                }
+                sentAt[update] = System.nanoTime();
+                service.updateScore(matchId, update + 1, 0);
+                nextUpdate += interval.toNanos();
+            }
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (fanOut.count() < (long) connections * updates && System.nanoTime() < deadline) {
+                poll(selector, 10, sentAt, fanOut);
+            }
+            for (final var stream : streams) {
+                for (int update = 0; update < stream.received; update++) {
+                    completeAt[update] = Math.max(completeAt[update], stream.receivedAt[update]);
+                }
+            }
+            final var fullFanOut = new LatencyHistogram();
+            for (int update = 0; update < updates; update++) {
+                if (completeAt[update] != 0) {
+                    fullFanOut.record(completeAt[update] - sentAt[update]);
+                }
+            }
+            System.out.printf("delivered %d of %d changes%n", fanOut.count(), (long) connections * updates);
+            print("per stream", fanOut);
+            print("to all streams", fullFanOut);
+        }
+    }
+
+    private static void poll(Selector selector, long timeoutMillis, long[] sentAt, LatencyHistogram fanOut)
+        throws IOException {
+        if (timeoutMillis == 0) {
+            selector.selectNow();
+        } else {
+            selector.select(timeoutMillis);
+        }
+        final var now = System.nanoTime();
+        for (final var key : selector.selectedKeys()) {
+            final var stream = (Stream) key.attachment();
+            if (key.isConnectable()) {
+                stream.finishConnect(key);
+            } else if (key.isReadable()) {
+                final var changes = stream.read(now);
+                if (sentAt != null) {
+                    for (int i = stream.received - changes; i < stream.received; i++) {
+                        fanOut.record(now - sentAt[i]);
+                    }
+                }
+            }
+        }
+        selector.selectedKeys().clear();
+    }
+
+    private static void print(String name, LatencyHistogram histogram) {
+        System.out.printf("%-15s p50=%dus p99=%dus p99.9=%dus max=%dus%n", name,
+            TimeUnit.NANOSECONDS.toMicros(histogram.percentile(50.0)),
+            TimeUnit.NANOSECONDS.toMicros(histogram.percentile(99.0)),
+            TimeUnit.NANOSECONDS.toMicros(histogram.percentile(99.9)),
+            TimeUnit.NANOSECONDS.toMicros(histogram.max()));
+    }
+
+    private static long usedHeapMegabytes() {
+        final var runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+    }
+
+    /**
+     * Client end of one SSE stream; counts {@code change} events, matching the marker across reads.
+     */
+    private static final class Stream {
+
+        private static final ByteBuffer BUFFER = ByteBuffer.allocate(64 * 1024);
+
+        final SocketChannel channel;
+        final byte[] request;
+        long[] receivedAt = new long[16];
+        int received;
+        int matched;
+
+        private Stream(SocketChannel channel, int port) {
+            this.channel = channel;
+            this.request = "GET /events HTTP/1.1\r\nHost: localhost:%d\r\n\r\n".formatted(port).getBytes(US_ASCII);
+        }
+
+        static Stream open(Selector selector, int port) throws IOException {
+            final var channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            final var stream = new Stream(channel, port);
+            if (channel.connect(new InetSocketAddress("localhost", port))) {
+                channel.write(ByteBuffer.wrap(stream.request));
+                channel.register(selector, SelectionKey.OP_READ, stream);
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT, stream);
+            }
+            return stream;
+        }
+
+        void finishConnect(SelectionKey key) throws IOException {
+            channel.finishConnect();
+            channel.write(ByteBuffer.wrap(request));
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * Returns the number of {@code change} events completed by this read.
+         */
+        int read(long now) throws IOException {
+            BUFFER.clear();
+            if (channel.read(BUFFER) < 0) {
+                channel.close();
+                return 0;
+            }
+            final var before = received;
+            for (int i = 0; i < BUFFER.position(); i++) {
+                final var b = BUFFER.get(i);
+                matched = b == CHANGE[matched] ? matched + 1 : b == CHANGE[0] ? 1 : 0;
+                if (matched == CHANGE.length) {
+                    matched = 0;
+                    if (received == receivedAt.length) {
+                        receivedAt = Arrays.copyOf(receivedAt, received * 2);
+                    }
+                    receivedAt[received++] = now;
+                }
+            }
+            return received - before;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.ilzi.scorecard.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in {@link ScoreboardMetrics} that keeps everything in lock-free counters and {@link LatencyHistogram}s, and
+ * can export them through JMX.
+ */
+public final class RecordingMetrics implements ScoreboardMetrics {
+
+    public final LatencyHistogram lockWait = new LatencyHistogram();
+    public final LatencyHistogram lockHold = new LatencyHistogram();
+    public final LatencyHistogram snapshotPublish = new LatencyHistogram();
+
+    private final LongAdder snapshotPublishRetries = new LongAdder();
+    private final LongAdder snapshotReads = new LongAdder();
+    private final LongAdder cachedSnapshotReads = new LongAdder();
+    private volatile int boardSize;
+
+    @Override
+    public void lockWaited(long nanos) {
+        lockWait.record(nanos);
+    }
+
+    @Override
+    public void lockHeld(long nanos) {
+        lockHold.record(nanos);
+    }
+
+    @Override
+    public void snapshotPublished(long nanos, int retries, int boardSize) {
+        snapshotPublish.record(nanos);
+        if (retries != 0) {
+            snapshotPublishRetries.add(retries);
+        }
+        this.boardSize = boardSize;
+    }
+
+    @Override
+    public void snapshotRead(boolean cached) {
+        snapshotReads.increment();
+        if (cached) {
+            cachedSnapshotReads.increment();
+        }
+    }
+
+    public long snapshotPublishRetries() {
+        return snapshotPublishRetries.sum();
+    }
+
+    public long snapshotReads() {
+        return snapshotReads.sum();
+    }
+
+    public long cachedSnapshotReads() {
+        return cachedSnapshotReads.sum();
+    }
+
+    /**
+     * Returns the number of live matches as of the last published change.
+     */
+    public int boardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server as
+     * {@code org.ilzi.scorecard:type=ScoreboardMetrics,name=<name>}.
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        final var objectName =
+            new ObjectName("org.ilzi.scorecard:type=ScoreboardMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(), objectName);
+        return objectName;
+    }
+
+    private final class MXBean implements ScoreboardMetricsMXBean {
+
+        @Override
+        public long getLockWaitCount() {
+            return lockWait.count();
+        }
+
+        @Override
+        public double getLockWaitMeanNanos() {
+            return lockWait.mean();
+        }
+
+        @Override
+        public long getLockWaitP99Nanos() {
+            return lockWait.percentile(99.0);
+        }
+
+        @Override
+        public long getLockWaitMaxNanos() {
+            return lockWait.max();
+        }
+
+        @Override
+        public long getLockHoldCount() {
+            return lockHold.count();
+        }
+
+        @Override
+        public double getLockHoldMeanNanos() {
+            return lockHold.mean();
+        }
+
+        @Override
+        public long getLockHoldP99Nanos() {
+            return lockHold.percentile(99.0);
+        }
+
+        @Override
+        public long getLockHoldMaxNanos() {
+            return lockHold.max();
+        }
+
+        @Override
+        public long getSnapshotPublishCount() {
+            return snapshotPublish.count();
+        }
+
+        @Override
+        public double getSnapshotPublishMeanNanos() {
+            return snapshotPublish.mean();
+        }
+
+        @Override
+        public long getSnapshotPublishP99Nanos() {
+            return snapshotPublish.percentile(99.0);
+        }
+
+        @Override
+        public long getSnapshotPublishMaxNanos() {
+            return snapshotPublish.max();
+        }
+
+        @Override
+        public long getSnapshotPublishRetries() {
+            return snapshotPublishRetries();
+        }
+
+        @Override
+        public long getSnapshotReadCount() {
+            return snapshotReads();
+        }
+
+        @Override
+        public double getCachedSnapshotReadRatio() {
+            final var reads = snapshotReads();
+            return reads == 0 ? 0.0 : (double) cachedSnapshotReads() / reads;
+        }
+
+        @Override
+        public int getBoardSize() {
+            return boardSize;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.ilzi.scorecard.metrics;
+
+/**
+ * Receives measurements from a {@link org.ilzi.scorecard.repository.MatchSummaryRepository}. Methods are called on
+ * the hot path, by writers while they hold a match lock and by readers, so implementations must be quick, must not
+ * block and must be thread-safe.
+ * <p>
+ * With {@link #NONE}, the default, the repository does not even read the clock.
+ */
+public interface ScoreboardMetrics {
+
+    ScoreboardMetrics NONE = new ScoreboardMetrics() {
+    };
+
+    /**
+     * A writer waited this long to get the lock, or all the locks, of the matches it changes.
+     */
+    default void lockWaited(long nanos) {
+    }
+
+    /**
+     * A writer held its locks this long, including publishing the board and notifying listeners.
+     */
+    default void lockHeld(long nanos) {
+    }
+
+    /**
+     * A new snapshot of the board was built and swapped in, after {@code retries} lost swaps to concurrent writers.
+     *
+     * @param boardSize the number of live matches after the change
+     */
+    default void snapshotPublished(long nanos, int retries, int boardSize) {
+    }
+
+    /**
+     * A reader took the board; {@code cached} when it got an already built snapshot, false when shard snapshots
+     * had to be merged for it.
+     */
+    default void snapshotRead(boolean cached) {
+    }
+}
@@ -0,0 +1,39 @@
+package org.ilzi.scorecard.metrics;
+
+/**
+ * JMX view of {@link RecordingMetrics}. Durations are in nanoseconds.
+ */
+public interface ScoreboardMetricsMXBean {
+
+    long getLockWaitCount();
+
+    double getLockWaitMeanNanos();
+
+    long getLockWaitP99Nanos();
+
+    long getLockWaitMaxNanos();
+
+    long getLockHoldCount();
+
+    double getLockHoldMeanNanos();
+
+    long getLockHoldP99Nanos();
+
+    long getLockHoldMaxNanos();
+
+    long getSnapshotPublishCount();
+
+    double getSnapshotPublishMeanNanos();
+
+    long getSnapshotPublishP99Nanos();
+
+    long getSnapshotPublishMaxNanos();
+
+    long getSnapshotPublishRetries();
+
+    long getSnapshotReadCount();
+
+    double getCachedSnapshotReadRatio();
+
+    int getBoardSize();
+}
@@ -0,0 +1,45 @@
+package org.ilzi.scorecard.model;
+
+import java.util.Objects;
+
+import static java.util.Objects.hash;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A finished match with its final score.
+ */
+public final class ArchivedMatch {
+
+    public final MatchSummary matchSummary;
+    public final long endedTimestamp;
+
+    public ArchivedMatch(MatchSummary matchSummary, long endedTimestamp) {
+        this.matchSummary = requireNonNull(matchSummary);
+        this.endedTimestamp = endedTimestamp;
+    }
+
+    public boolean involves(String team) {
+        return matchSummary.homeTeam.equals(team) || matchSummary.awayTeam.equals(team);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ArchivedMatch that = (ArchivedMatch) o;
+        return endedTimestamp == that.endedTimestamp
+            && Objects.equals(matchSummary, that.matchSummary);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(matchSummary, endedTimestamp);
+    }
+
+    @Override
+    public String toString() {
+        return "ArchivedMatch{" +
+            "matchSummary=" + matchSummary +
+            ", endedTimestamp=" + endedTimestamp +
+            '}';
+    }
+}
@@ -0,0 +1,50 @@
+package org.ilzi.scorecard.model;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Outcome of a bulk operation: the items that were applied and, for every item that was not, the reason why.
+ */
+public final class BatchResult<T> {
+
+    public final List<T> succeeded;
+    public final List<Failure<T>> failed;
+
+    public BatchResult(List<T> succeeded, List<Failure<T>> failed) {
+        this.succeeded = List.copyOf(succeeded);
+        this.failed = List.copyOf(failed);
+    }
+
+    public boolean isSuccessful() {
+        return failed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+            "succeeded=" + succeeded +
+            ", failed=" + failed +
+            '}';
+    }
+
+    public static final class Failure<T> {
+
+        public final T item;
+        public final RuntimeException error;
+
+        public Failure(T item, RuntimeException error) {
+            this.item = requireNonNull(item);
+            this.error = requireNonNull(error);
+        }
+
+        @Override
+        public String toString() {
+            return "Failure{" +
+                "item=" + item +
+                ", error=" + error +
+                '}';
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.ilzi.scorecard.model;
+
+import java.util.Objects;
+
+import static java.util.Objects.hash;
+
+/**
+ * A match to be started.
+ */
+public final class Fixture {
+
+    public final String homeTeam;
+    public final String awayTeam;
+
+    public Fixture(String homeTeam, String awayTeam) {
+        this.homeTeam = homeTeam;
+        this.awayTeam = awayTeam;
+    }
+
+    public static Fixture fixture(String homeTeam, String awayTeam) {
+        return new Fixture(homeTeam, awayTeam);
+    }
+
+    public String matchId() {
+        return homeTeam + "_" + awayTeam;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        Fixture that = (Fixture) o;
+        return Objects.equals(homeTeam, that.homeTeam)
+            && Objects.equals(awayTeam, that.awayTeam);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(homeTeam, awayTeam);
+    }
+
+    @Override
+    public String toString() {
+        return "Fixture{" +
+            "homeTeam='" + homeTeam + '\'' +
+            ", awayTeam='" + awayTeam + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,28 @@
+package org.ilzi.scorecard.model;
+
+/**
+ * Numeric match handle: the registry ids of the home and away team packed into one {@code long}, the home team in
+ * the upper half.
+ */
+public final class MatchHandle {
+
+    /**
+     * Handle of no match, returned for teams that have never played a started match.
+     */
+    public static final long NO_HANDLE = -1L;
+
+    private MatchHandle() {
+    }
+
+    public static long matchHandle(int homeTeamId, int awayTeamId) {
+        return (long) homeTeamId << 32 | (awayTeamId & 0xFFFFFFFFL);
+    }
+
+    public static int homeTeamId(long matchHandle) {
+        return (int) (matchHandle >>> 32);
+    }
+
+    public static int awayTeamId(long matchHandle) {
+        return (int) matchHandle;
+    }
+}
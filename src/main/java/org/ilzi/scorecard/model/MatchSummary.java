@@ -2,6 +2,7 @@ package org.ilzi.scorecard.model;
 
 import javax.validation.ValidationException;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.util.Objects.hash;
 import static java.util.Objects.requireNonNull;
@@ -9,8 +10,19 @@ import static org.ilzi.scorecard.model.MatchSummary.Builder.matchSummary;
 
 public class MatchSummary {
 
+    /**
+     * Bits of the {@link #sortKey()} holding the start sequence; the total score takes the bits above them.
+     */
+    public static final int START_SEQUENCE_BITS = 39;
+    public static final int MAX_SORTED_TOTAL_SCORE = (1 << (63 - START_SEQUENCE_BITS)) - 1;
+
     public final String id;
     public final long createdTimestamp;
+    /**
+     * Position of the match in the order matches were started in, unique and increasing within the JVM; later
+     * starts win ties on the board instead of {@link #createdTimestamp}, which repeats within a millisecond.
+     */
+    public final long startSequence;
     
     public final String homeTeam;
     public final String awayTeam;
@@ -24,25 +36,58 @@ public class MatchSummary {
         this.awayTeam = checkNotEmpty("awayTeam", builder.awayTeam);
         this.homeTeamScore = checkGreaterOrEqual("homeTeamScore", builder.homeTeamScore, 0);
         this.awayTeamScore = checkGreaterOrEqual("awayTeamScore", builder.awayTeamScore, 0);
+        this.startSequence = builder.startSequence != Builder.UNASSIGNED
+            ? builder.startSequence
+            : Builder.START_SEQUENCES.incrementAndGet();
+    }
+
+    /**
+     * Copies only the fields of this already validated summary, so the hot update path checks just the new scores
+     * and allocates nothing but the returned summary, or nothing at all when the score does not change.
+     */
+    private MatchSummary(MatchSummary previous, int homeTeamScore, int awayTeamScore) {
+        this.id = previous.id;
+        this.createdTimestamp = previous.createdTimestamp;
+        this.startSequence = previous.startSequence;
+        this.homeTeam = previous.homeTeam;
+        this.awayTeam = previous.awayTeam;
+        this.homeTeamScore = homeTeamScore;
+        this.awayTeamScore = awayTeamScore;
+    }
+
+    /**
+     * Returns {@code [total score][start sequence]} packed into one non-negative long, so ordering the board is a
+     * single primitive comparison: a higher key ranks first. Totals above {@link #MAX_SORTED_TOTAL_SCORE} rank as
+     * equal.
+     */
+    public long sortKey() {
+        final var totalScore = Math.min((long) homeTeamScore + awayTeamScore, MAX_SORTED_TOTAL_SCORE);
+        return (totalScore << START_SEQUENCE_BITS) | startSequence;
     }
 
     public MatchSummary withNewScore(int newHomeTeamScore, int newAwayTeamScore) {
-        return copy()
-            .homeTeamScore(checkGreaterOrEqual("newHomeTeamScore", newHomeTeamScore, homeTeamScore))
-            .awayTeamScore(checkGreaterOrEqual("newAwayTeamScore", newAwayTeamScore, awayTeamScore))
-            .build();
+        checkGreaterOrEqual("newHomeTeamScore", newHomeTeamScore, homeTeamScore);
+        checkGreaterOrEqual("newAwayTeamScore", newAwayTeamScore, awayTeamScore);
+        if (newHomeTeamScore == homeTeamScore && newAwayTeamScore == awayTeamScore) {
+            return this;
+        }
+        return new MatchSummary(this, newHomeTeamScore, newAwayTeamScore);
     }
     
     public Builder copy() {
         return matchSummary()
             .id(id)
             .createdDate(createdTimestamp)
+            .startSequence(startSequence)
             .homeTeam(homeTeam)
             .awayTeam(awayTeam)
             .homeTeamScore(homeTeamScore)
             .awayTeamScore(awayTeamScore);
     }
 
+    /**
+     * Equality ignores the start sequence, which only orders matches and is not kept by every storage format.
+     */
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
@@ -65,6 +110,7 @@ public class MatchSummary {
         return "MatchSummary{" +
             "id='" + id + '\'' +
             ", createdTimestamp=" + createdTimestamp +
+            ", startSequence=" + startSequence +
             ", homeTeam='" + homeTeam + '\'' +
             ", awayTeam='" + awayTeam + '\'' +
             ", homeTeamScore=" + homeTeamScore +
@@ -88,8 +134,12 @@ public class MatchSummary {
     
     public static class Builder {
 
+        private static final long UNASSIGNED = 0L;
+        private static final AtomicLong START_SEQUENCES = new AtomicLong();
+
         private String id;
         private long createdDate = System.currentTimeMillis();
+        private long startSequence = UNASSIGNED;
         private String homeTeam;
         private String awayTeam;
         private int homeTeamScore;
@@ -109,6 +159,20 @@ public class MatchSummary {
             return this;
         }
 
+        /**
+         * Keeps the start sequence of a match read back from storage; matches built later get higher sequences.
+         * Without it, {@link #build()} assigns the next sequence.
+         */
+        public Builder startSequence(long startSequence) {
+            if (startSequence < 1 || startSequence >= 1L << START_SEQUENCE_BITS) {
+                throw new ValidationException("startSequence must be between 1 and 2^%d, but is %d"
+                    .formatted(START_SEQUENCE_BITS, startSequence));
+            }
+            this.startSequence = startSequence;
+            START_SEQUENCES.accumulateAndGet(startSequence, Math::max);
+            return this;
+        }
+
         public Builder homeTeam(String homeTeam) {
             this.homeTeam = homeTeam;
             return this;
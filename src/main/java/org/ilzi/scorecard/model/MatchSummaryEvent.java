@@ -0,0 +1,74 @@
+package org.ilzi.scorecard.model;
+
+import java.util.Objects;
+
+import static java.util.Objects.hash;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A single change of the board. Ranks are zero-based positions in the ordered board, {@link #NO_RANK} when the match
+ * was not (or is no longer) on it.
+ */
+public final class MatchSummaryEvent {
+
+    public static final int NO_RANK = -1;
+
+    public enum Type {
+        STARTED,
+        SCORE_UPDATED,
+        ENDED
+    }
+
+    public final Type type;
+    public final MatchSummary matchSummary;
+    public final int previousRank;
+    public final int rank;
+    public final long version;
+
+    public MatchSummaryEvent(Type type, MatchSummary matchSummary, int previousRank, int rank, long version) {
+        this.type = requireNonNull(type);
+        this.matchSummary = requireNonNull(matchSummary);
+        this.previousRank = previousRank;
+        this.rank = rank;
+        this.version = version;
+    }
+
+    /**
+     * Merges this event with a later event of the same match into one event describing both changes, or returns
+     * {@code null} when they cancel out (a match started and ended before anybody saw it).
+     */
+    public MatchSummaryEvent conflate(MatchSummaryEvent later) {
+        if (type == Type.STARTED && later.type == Type.ENDED) {
+            return null;
+        }
+        final var mergedType = type == Type.STARTED ? Type.STARTED : later.type;
+        return new MatchSummaryEvent(mergedType, later.matchSummary, previousRank, later.rank, later.version);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        MatchSummaryEvent that = (MatchSummaryEvent) o;
+        return previousRank == that.previousRank
+            && rank == that.rank
+            && version == that.version
+            && type == that.type
+            && Objects.equals(matchSummary, that.matchSummary);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(type, matchSummary, previousRank, rank, version);
+    }
+
+    @Override
+    public String toString() {
+        return "MatchSummaryEvent{" +
+            "type=" + type +
+            ", matchSummary=" + matchSummary +
+            ", previousRank=" + previousRank +
+            ", rank=" + rank +
+            ", version=" + version +
+            '}';
+    }
+}
@@ -0,0 +1,46 @@
+package org.ilzi.scorecard.model;
+
+import java.util.Objects;
+
+import static java.util.Objects.hash;
+import static java.util.Objects.requireNonNull;
+
+public final class ScoreUpdate {
+
+    public final String matchId;
+    public final int homeTeamScore;
+    public final int awayTeamScore;
+
+    public ScoreUpdate(String matchId, int homeTeamScore, int awayTeamScore) {
+        this.matchId = requireNonNull(matchId);
+        this.homeTeamScore = homeTeamScore;
+        this.awayTeamScore = awayTeamScore;
+    }
+
+    public static ScoreUpdate scoreUpdate(String matchId, int homeTeamScore, int awayTeamScore) {
+        return new ScoreUpdate(matchId, homeTeamScore, awayTeamScore);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ScoreUpdate that = (ScoreUpdate) o;
+        return homeTeamScore == that.homeTeamScore
+            && awayTeamScore == that.awayTeamScore
+            && Objects.equals(matchId, that.matchId);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(matchId, homeTeamScore, awayTeamScore);
+    }
+
+    @Override
+    public String toString() {
+        return "ScoreUpdate{" +
+            "matchId='" + matchId + '\'' +
+            ", homeTeamScore=" + homeTeamScore +
+            ", awayTeamScore=" + awayTeamScore +
+            '}';
+    }
+}
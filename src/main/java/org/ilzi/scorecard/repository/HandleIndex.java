@@ -0,0 +1,202 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummary;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.ilzi.scorecard.model.MatchHandle.NO_HANDLE;
+
+/**
+ * The live matches by {@link org.ilzi.scorecard.model.MatchHandle}, in open-addressing tables keyed by the primitive
+ * handle, so a lookup neither boxes the handle nor hashes a string. Lookups never lock. The handles are spread over
+ * segments with a lock and a table each, so writes to different segments run in parallel; a segment publishes a new
+ * table when the current one fills up.
+ * <p>
+ * An ended match leaves its handle in the table with no match, so the slot is reused when the same teams meet again;
+ * such slots are dropped whenever the table is rebuilt.
+ */
+final class HandleIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    /**
+     * @param segments number of independently locked segments, a power of two
+     */
+    HandleIndex(int segments) {
+        if (segments < 1 || Integer.bitCount(segments) != 1) {
+            throw new IllegalArgumentException("segments must be a power of two, but is %d".formatted(segments));
+        }
+        this.segments = new Segment[segments];
+        for (int i = 0; i < segments; i++) {
+            this.segments[i] = new Segment();
+        }
+        this.segmentShift = Long.SIZE - Integer.numberOfTrailingZeros(segments);
+    }
+
+    /**
+     * Returns the live match with the handle, or null if there is none.
+     */
+    MatchSummary get(long matchHandle) {
+        final var hash = hashOf(matchHandle);
+        final var table = segmentOf(hash).table;
+        final var mask = table.mask;
+        for (int slot = slotOf(hash, mask); ; slot = (slot + 1) & mask) {
+            final var key = table.handles.get(slot);
+            if (key == matchHandle) {
+                return table.matchSummaries.get(slot);
+            }
+            if (key == NO_HANDLE) {
+                return null;
+            }
+        }
+    }
+
+    void put(long matchHandle, MatchSummary matchSummary) {
+        final var hash = hashOf(matchHandle);
+        final var segment = segmentOf(hash);
+        segment.lock.lock();
+        try {
+            segment.put(matchHandle, hash, matchSummary);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the handle if it still maps to the match with the id.
+     */
+    void remove(long matchHandle, String matchId) {
+        final var hash = hashOf(matchHandle);
+        final var segment = segmentOf(hash);
+        segment.lock.lock();
+        try {
+            segment.remove(matchHandle, hash, matchId);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    void clear() {
+        for (final var segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.table = new Table(MIN_CAPACITY);
+                segment.usedSlots = 0;
+                segment.liveSlots = 0;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    private Segment segmentOf(long hash) {
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    private static long hashOf(long matchHandle) {
+        return matchHandle * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Slots are taken from the middle bits of the hash, segments from the top ones.
+     */
+    private static int slotOf(long hash, int mask) {
+        return (int) (hash >>> 16) & mask;
+    }
+
+    /**
+     * Returns the slot holding the handle or the free slot where it belongs.
+     */
+    private static int find(Table table, long matchHandle, long hash) {
+        final var mask = table.mask;
+        var slot = slotOf(hash, mask);
+        while (true) {
+            final var key = table.handles.get(slot);
+            if (key == matchHandle || key == NO_HANDLE) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * One table with the lock guarding its writes; the counters are only accessed with the lock held.
+     */
+    private static final class Segment {
+
+        final ReentrantLock lock = new ReentrantLock();
+        volatile Table table = new Table(MIN_CAPACITY);
+        int usedSlots;
+        int liveSlots;
+
+        void put(long matchHandle, long hash, MatchSummary matchSummary) {
+            var slot = find(table, matchHandle, hash);
+            if (table.handles.get(slot) != matchHandle) {
+                if ((usedSlots + 1) * 2 > table.handles.length()) {
+                    rebuild();
+                    slot = find(table, matchHandle, hash);
+                }
+                usedSlots++;
+            }
+            if (table.matchSummaries.get(slot) == null) {
+                liveSlots++;
+            }
+            // the match is set before the handle, so a reader that finds the handle also finds the match
+            table.matchSummaries.set(slot, matchSummary);
+            table.handles.set(slot, matchHandle);
+        }
+
+        void remove(long matchHandle, long hash, String matchId) {
+            final var slot = find(table, matchHandle, hash);
+            final var matchSummary = table.matchSummaries.get(slot);
+            if (table.handles.get(slot) == matchHandle && matchSummary != null && matchSummary.id.equals(matchId)) {
+                table.matchSummaries.set(slot, null);
+                liveSlots--;
+            }
+        }
+
+        /**
+         * Copies the live entries into a table at most half full after the next insert.
+         */
+        private void rebuild() {
+            var capacity = MIN_CAPACITY;
+            while (capacity < (liveSlots + 1) * 4) {
+                capacity <<= 1;
+            }
+            final var previous = table;
+            final var rebuilt = new Table(capacity);
+            for (int slot = 0; slot < previous.handles.length(); slot++) {
+                final var matchSummary = previous.matchSummaries.get(slot);
+                if (matchSummary != null) {
+                    final var matchHandle = previous.handles.get(slot);
+                    final var target = find(rebuilt, matchHandle, hashOf(matchHandle));
+                    rebuilt.matchSummaries.set(target, matchSummary);
+                    rebuilt.handles.set(target, matchHandle);
+                }
+            }
+            table = rebuilt;
+            usedSlots = liveSlots;
+        }
+    }
+
+    private static final class Table {
+
+        final AtomicLongArray handles;
+        final AtomicReferenceArray<MatchSummary> matchSummaries;
+        final int mask;
+
+        Table(int capacity) {
+            this.handles = new AtomicLongArray(capacity);
+            this.matchSummaries = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            for (int slot = 0; slot < capacity; slot++) {
+                handles.set(slot, NO_HANDLE);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummary;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default store: a {@link ConcurrentHashMap} of the immutable match summaries, so lookups never allocate.
+ */
+public final class HeapMatchStore implements MatchStore {
+
+    private final ConcurrentHashMap<String, MatchSummary> matchSummaries = new ConcurrentHashMap<>();
+
+    @Override
+    public MatchSummary get(String matchId) {
+        return matchSummaries.get(matchId);
+    }
+
+    @Override
+    public MatchSummary putIfAbsent(MatchSummary matchSummary) {
+        return matchSummaries.putIfAbsent(matchSummary.id, matchSummary);
+    }
+
+    @Override
+    public void replace(MatchSummary matchSummary) {
+        matchSummaries.put(matchSummary.id, matchSummary);
+    }
+
+    @Override
+    public MatchSummary remove(String matchId) {
+        return matchSummaries.remove(matchId);
+    }
+
+    @Override
+    public int size() {
+        return matchSummaries.size();
+    }
+}
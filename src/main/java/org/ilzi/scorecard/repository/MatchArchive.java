@@ -0,0 +1,872 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.ArchivedMatch;
+import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+import static org.ilzi.scorecard.model.MatchSummary.Builder.matchSummary;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.ENDED;
+
+/**
+ * Keeps the matches that ended on a repository, queryable by end time and by team.
+ * <p>
+ * Recently ended matches are kept on the heap, in end time order and indexed by team, until there are more than
+ * {@code maxMatches} of them or they are older than {@code maxAge}. Evicted matches are dropped, or, with segments
+ * configured, appended to segment files by a background thread. A segment is a file of CRC-checked records in end
+ * time order, rolled over after {@code matchesPerSegment} matches; only the newest {@code maxSegments} are kept. Each
+ * segment has a small in-memory index of its time range, its teams and the offset of every 128th record, so queries
+ * only read the segments, and the parts of them, that can hold matches.
+ * <p>
+ * Archiving a match costs the writer of the repository one lock-free enqueue, whatever the size of the archive and
+ * however long queries take: a background thread moves ended matches into the lists and evicts, and the first match
+ * queued after it caught up wakes it. Queries and size lookups first wait for the matches ended before them to be
+ * archived; they never evict, and never read the disk while holding the lock.
+ */
+public final class MatchArchive implements MatchSummaryListener, AutoCloseable {
+
+    private static final int SPARSE_INDEX_INTERVAL = 128;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".archive";
+
+    private final MatchSummaryRepository repository;
+    private final Clock clock;
+    private final int maxMatches;
+    private final long maxAgeMillis;
+
+    private final ConcurrentLinkedQueue<Ended> ended = new ConcurrentLinkedQueue<>();
+    private final ExecutorService archiver;
+    private final AtomicBoolean archiveScheduled = new AtomicBoolean();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TimeOrderedList recent = new TimeOrderedList();
+    private final HashMap<String, TimeOrderedList> recentByTeam = new HashMap<>();
+    private final TimeOrderedList spilling = new TimeOrderedList();
+    private long lastEndedTimestamp = Long.MIN_VALUE;
+    private volatile boolean closed;
+
+    private final Path directory;
+    private final int matchesPerSegment;
+    private final int maxSegments;
+    private final ExecutorService spiller;
+    private final AtomicBoolean spillScheduled = new AtomicBoolean();
+    private List<Segment> segments = List.of();
+    private FileChannel activeSegment;
+    private long nextSegmentSequence;
+    private volatile IOException failure;
+
+    private MatchArchive(Builder builder, MatchSummaryRepository repository) {
+        this.repository = repository;
+        this.clock = builder.clock;
+        this.maxMatches = builder.maxMatches;
+        this.maxAgeMillis = builder.maxAge == null ? Long.MAX_VALUE : builder.maxAge.toMillis();
+        this.directory = builder.directory;
+        this.matchesPerSegment = builder.matchesPerSegment;
+        this.maxSegments = builder.maxSegments;
+        this.archiver = daemonExecutor(
+            directory == null ? "match-archive" : "match-archive-archiver-" + directory.getFileName());
+        this.spiller = directory == null ? null : daemonExecutor("match-archive-" + directory.getFileName());
+    }
+
+    /**
+     * Archived matches are not ranked, so the writers need not rank changes for the archive.
+     */
+    @Override
+    public boolean needsRanks() {
+        return false;
+    }
+
+    /**
+     * Queues ended matches for archiving; other events are ignored.
+     */
+    @Override
+    public void onEvent(MatchSummaryEvent event) {
+        if (event.type != ENDED || closed) {
+            return;
+        }
+        ended.add(new Ended(event.matchSummary, clock.millis()));
+        if (archiveScheduled.compareAndSet(false, true)) {
+            try {
+                archiver.execute(this::archiveEnded);
+            } catch (RejectedExecutionException e) {
+                // the archive was closed while the match ended
+            }
+        }
+    }
+
+    /**
+     * Returns the matches that ended at or after {@code fromTimestamp} and before {@code toTimestamp}, in the order
+     * they ended.
+     *
+     * @throws UncheckedIOException when a segment cannot be read
+     */
+    public List<ArchivedMatch> endedBetween(long fromTimestamp, long toTimestamp) {
+        return query(null, fromTimestamp, toTimestamp);
+    }
+
+    /**
+     * Like {@link #endedBetween(long, long)}, limited to the matches the team played in.
+     */
+    public List<ArchivedMatch> endedBetween(String team, long fromTimestamp, long toTimestamp) {
+        return query(requireNonNull(team), fromTimestamp, toTimestamp);
+    }
+
+    /**
+     * Returns all archived matches the team played in, in the order they ended.
+     */
+    public List<ArchivedMatch> matchesOf(String team) {
+        return endedBetween(team, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of archived matches, on the heap and in segments.
+     */
+    public long size() {
+        catchUp();
+        lock.readLock().lock();
+        try {
+            var size = (long) recent.size() + spilling.size();
+            for (final var segment : segments) {
+                size += segment.count;
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of archived matches kept on the heap.
+     */
+    public int heapSize() {
+        catchUp();
+        lock.readLock().lock();
+        try {
+            return recent.size() + spilling.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits until every match evicted so far is written to its segment.
+     *
+     * @throws IOException when writing a segment failed
+     */
+    public void flush() throws IOException, InterruptedException {
+        catchUp();
+        if (spiller != null) {
+            await(spiller.submit(this::spill));
+        }
+        checkFailure();
+    }
+
+    /**
+     * Detaches from the repository. With segments configured, the matches still on the heap are written to segments
+     * first, so an archive opened on the same directory finds them again.
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        repository.removeListener(this);
+        closed = true;
+        await(archiver.submit(this::archiveEnded));
+        archiver.shutdown();
+        if (spiller == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            while (recent.size() > 0) {
+                evictOldest();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        await(spiller.submit(this::spill));
+        spiller.shutdown();
+        spiller.awaitTermination(1, TimeUnit.MINUTES);
+        if (activeSegment != null) {
+            activeSegment.close();
+        }
+        checkFailure();
+    }
+
+    private List<ArchivedMatch> query(String team, long fromTimestamp, long toTimestamp) {
+        catchUp();
+        final var inMemory = new ArrayList<ArchivedMatch>();
+        final List<Segment> segments;
+        lock.readLock().lock();
+        try {
+            segments = this.segments;
+            spilling.collect(team, fromTimestamp, toTimestamp, inMemory);
+            final var recent = team == null ? this.recent : recentByTeam.get(team);
+            if (recent != null) {
+                recent.collect(null, fromTimestamp, toTimestamp, inMemory);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (segments.isEmpty()) {
+            return inMemory;
+        }
+        final var result = new ArrayList<ArchivedMatch>();
+        for (final var segment : segments) {
+            if (segment.mayContain(team, fromTimestamp, toTimestamp)) {
+                segment.read(team, fromTimestamp, toTimestamp, result);
+            }
+        }
+        result.addAll(inMemory);
+        return result;
+    }
+
+    /**
+     * Waits until the archiver has archived the matches queued so far and evicted what is due, if there is anything
+     * to do for it.
+     */
+    private void catchUp() {
+        if (closed || ended.isEmpty() && !hasExpired(clock.millis())) {
+            return;
+        }
+        try {
+            await(archiver.submit(this::archiveEnded));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ended matches to be archived", e);
+        } catch (RejectedExecutionException e) {
+            // closed meanwhile, which archived everything
+        }
+    }
+
+    private boolean hasExpired(long now) {
+        if (maxAgeMillis == Long.MAX_VALUE) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return recent.size() > 0 && now - recent.first().endedTimestamp > maxAgeMillis;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs on the archiver thread only: moves the queued matches into the lists and evicts.
+     */
+    private void archiveEnded() {
+        archiveScheduled.set(false);
+        lock.writeLock().lock();
+        try {
+            for (var next = ended.poll(); next != null; next = ended.poll()) {
+                // end times only move forward, so every list stays sorted even if the clock is adjusted or matches
+                // were queued slightly out of order
+                lastEndedTimestamp = Math.max(lastEndedTimestamp, next.endedTimestamp);
+                final var archived = new ArchivedMatch(next.matchSummary, lastEndedTimestamp);
+                recent.add(archived);
+                recentByTeam.computeIfAbsent(archived.matchSummary.homeTeam, team -> new TimeOrderedList())
+                    .add(archived);
+                if (!archived.matchSummary.awayTeam.equals(archived.matchSummary.homeTeam)) {
+                    recentByTeam.computeIfAbsent(archived.matchSummary.awayTeam, team -> new TimeOrderedList())
+                        .add(archived);
+                }
+            }
+            evict(Math.max(lastEndedTimestamp, clock.millis()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Must be called with the write lock held.
+     */
+    private void evict(long now) {
+        while (recent.size() > maxMatches
+            || recent.size() > 0 && now - recent.first().endedTimestamp > maxAgeMillis) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        final var oldest = recent.removeFirst();
+        removeFirstOfTeam(oldest.matchSummary.homeTeam);
+        removeFirstOfTeam(oldest.matchSummary.awayTeam);
+        if (spiller != null && failure == null) {
+            spilling.add(oldest);
+            if (spillScheduled.compareAndSet(false, true)) {
+                spiller.execute(this::spill);
+            }
+        }
+    }
+
+    /**
+     * The matches of a team are a subsequence of all matches in end time order, so the oldest match overall is the
+     * oldest of both its teams.
+     */
+    private void removeFirstOfTeam(String team) {
+        final var matches = recentByTeam.get(team);
+        if (matches == null) {
+            return;
+        }
+        matches.removeFirst();
+        if (matches.size() == 0) {
+            recentByTeam.remove(team);
+        }
+    }
+
+    /**
+     * Runs on the spiller thread only, which is the only one appending to segments and removing from the spilling
+     * list.
+     */
+    private void spill() {
+        spillScheduled.set(false);
+        final List<ArchivedMatch> batch;
+        lock.readLock().lock();
+        try {
+            batch = spilling.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Segment> appended = null;
+        try {
+            appended = append(batch);
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        final var dropped = new ArrayList<Segment>();
+        lock.writeLock().lock();
+        try {
+            spilling.removeFirst(batch.size());
+            if (appended != null) {
+                final var kept = new ArrayList<>(appended);
+                while (kept.size() > maxSegments) {
+                    dropped.add(kept.remove(0));
+                }
+                segments = List.copyOf(kept);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (final var segment : dropped) {
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Writes the batch to the active segment, rolling over to new segments as they fill up, and returns the segment
+     * list including the appended matches. Does not touch the published list.
+     */
+    private List<Segment> append(List<ArchivedMatch> batch) throws IOException {
+        final var result = new ArrayList<>(segments);
+        final var encoder = new RecordEncoder();
+        var written = 0;
+        try {
+            while (written < batch.size()) {
+                if (activeSegment == null) {
+                    final var file = directory.resolve(
+                        "%s%016d%s".formatted(SEGMENT_PREFIX, nextSegmentSequence++, SEGMENT_SUFFIX));
+                    activeSegment = FileChannel.open(file, CREATE_NEW, WRITE);
+                    result.add(new Segment(file));
+                }
+                final var segment = result.get(result.size() - 1);
+                final var matches = batch.subList(
+                    written, written + Math.min(batch.size() - written, matchesPerSegment - segment.count));
+                final var grown = segment.append(matches, encoder);
+                final var buffer = ByteBuffer.wrap(encoder.bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    activeSegment.write(buffer);
+                }
+                result.set(result.size() - 1, grown);
+                if (grown.count == matchesPerSegment) {
+                    activeSegment.close();
+                    activeSegment = null;
+                }
+                written += matches.size();
+            }
+        } catch (IOException e) {
+            if (activeSegment != null) {
+                activeSegment.close();
+                activeSegment = null;
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        final var files = new ArrayList<Path>();
+        try (var listing = Files.list(directory)) {
+            listing.filter(MatchArchive::isSegment).sorted().forEach(files::add);
+        }
+        final var recovered = new ArrayList<Segment>();
+        for (final var file : files) {
+            final var segment = Segment.recover(file);
+            if (segment.count > 0) {
+                recovered.add(segment);
+                lastEndedTimestamp = Math.max(lastEndedTimestamp, segment.lastEndedTimestamp);
+            }
+            final var name = file.getFileName().toString();
+            nextSegmentSequence = Math.max(nextSegmentSequence,
+                Long.parseLong(name, SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length(), 10) + 1);
+        }
+        while (recovered.size() > maxSegments) {
+            Files.deleteIfExists(recovered.remove(0).file);
+        }
+        segments = List.copyOf(recovered);
+    }
+
+    private static boolean isSegment(Path file) {
+        final var name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX)
+            && name.endsWith(SEGMENT_SUFFIX)
+            && name.length() == SEGMENT_PREFIX.length() + 16 + SEGMENT_SUFFIX.length();
+    }
+
+    private void checkFailure() throws IOException {
+        final var failure = this.failure;
+        if (failure != null) {
+            throw new IOException("Archive write failed", failure);
+        }
+    }
+
+    private static ExecutorService daemonExecutor(String name) {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            final var thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void await(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Archive spill failed", e.getCause());
+        }
+    }
+
+    /**
+     * A match that ended at the given time and waits to be archived.
+     */
+    private record Ended(MatchSummary matchSummary, long endedTimestamp) {
+    }
+
+    /**
+     * Archived matches in end time order; removes from the front without shifting on every removal.
+     */
+    private static final class TimeOrderedList {
+
+        private ArchivedMatch[] matches = new ArchivedMatch[16];
+        private int head;
+        private int tail;
+
+        void add(ArchivedMatch match) {
+            if (tail == matches.length) {
+                final var size = size();
+                final var grown = size * 2 >= matches.length ? new ArchivedMatch[matches.length * 2] : matches;
+                System.arraycopy(matches, head, grown, 0, size);
+                if (grown == matches) {
+                    Arrays.fill(matches, size, tail, null);
+                }
+                matches = grown;
+                head = 0;
+                tail = size;
+            }
+            matches[tail++] = match;
+        }
+
+        ArchivedMatch first() {
+            return matches[head];
+        }
+
+        ArchivedMatch removeFirst() {
+            final var first = matches[head];
+            matches[head++] = null;
+            return first;
+        }
+
+        void removeFirst(int count) {
+            Arrays.fill(matches, head, head + count, null);
+            head += count;
+        }
+
+        int size() {
+            return tail - head;
+        }
+
+        List<ArchivedMatch> copy() {
+            return Arrays.asList(Arrays.copyOfRange(matches, head, tail));
+        }
+
+        void collect(String team, long fromTimestamp, long toTimestamp, List<ArchivedMatch> result) {
+            for (int i = firstEndedAtOrAfter(fromTimestamp); i < tail; i++) {
+                final var match = matches[i];
+                if (match.endedTimestamp >= toTimestamp) {
+                    return;
+                }
+                if (team == null || match.involves(team)) {
+                    result.add(match);
+                }
+            }
+        }
+
+        private int firstEndedAtOrAfter(long timestamp) {
+            var low = head;
+            var high = tail;
+            while (low < high) {
+                final var middle = (low + high) >>> 1;
+                if (matches[middle].endedTimestamp < timestamp) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Index of one segment file. Instances are immutable views: appending creates a new one covering more of the
+     * file, so a query keeps reading the part of the file that was complete when it started. Versions of a segment
+     * share the team set and the sparse index arrays, which are only ever added to past the end of older views.
+     */
+    private static final class Segment {
+
+        final Path file;
+        final int count;
+        final long bytes;
+        final long firstEndedTimestamp;
+        final long lastEndedTimestamp;
+        private final Set<String> teams;
+        private final long[] indexTimestamps;
+        private final long[] indexOffsets;
+
+        Segment(Path file) {
+            this(file, 0, 0L, Long.MAX_VALUE, Long.MIN_VALUE, ConcurrentHashMap.newKeySet(), new long[16],
+                new long[16]);
+        }
+
+        private Segment(Path file,
+                        int count,
+                        long bytes,
+                        long firstEndedTimestamp,
+                        long lastEndedTimestamp,
+                        Set<String> teams,
+                        long[] indexTimestamps,
+                        long[] indexOffsets) {
+            this.file = file;
+            this.count = count;
+            this.bytes = bytes;
+            this.firstEndedTimestamp = firstEndedTimestamp;
+            this.lastEndedTimestamp = lastEndedTimestamp;
+            this.teams = teams;
+            this.indexTimestamps = indexTimestamps;
+            this.indexOffsets = indexOffsets;
+        }
+
+        /**
+         * Encodes the matches into the encoder and returns the view including them.
+         */
+        Segment append(List<ArchivedMatch> matches, RecordEncoder encoder) throws IOException {
+            encoder.reset();
+            var indexTimestamps = this.indexTimestamps;
+            var indexOffsets = this.indexOffsets;
+            var count = this.count;
+            for (final var match : matches) {
+                final var offset = bytes + encoder.bytes.size();
+                if (count % SPARSE_INDEX_INTERVAL == 0) {
+                    final var entry = count / SPARSE_INDEX_INTERVAL;
+                    if (entry == indexTimestamps.length) {
+                        indexTimestamps = Arrays.copyOf(indexTimestamps, entry * 2);
+                        indexOffsets = Arrays.copyOf(indexOffsets, entry * 2);
+                    }
+                    indexTimestamps[entry] = match.endedTimestamp;
+                    indexOffsets[entry] = offset;
+                }
+                encoder.encode(match);
+                teams.add(match.matchSummary.homeTeam);
+                teams.add(match.matchSummary.awayTeam);
+                count++;
+            }
+            return new Segment(file,
+                count,
+                bytes + encoder.bytes.size(),
+                Math.min(firstEndedTimestamp, matches.get(0).endedTimestamp),
+                matches.get(matches.size() - 1).endedTimestamp,
+                teams,
+                indexTimestamps,
+                indexOffsets);
+        }
+
+        boolean mayContain(String team, long fromTimestamp, long toTimestamp) {
+            return count > 0
+                && firstEndedTimestamp < toTimestamp
+                && lastEndedTimestamp >= fromTimestamp
+                && (team == null || teams.contains(team));
+        }
+
+        void read(String team, long fromTimestamp, long toTimestamp, List<ArchivedMatch> result) {
+            var position = startOffset(fromTimestamp);
+            try (var channel = FileChannel.open(file, READ)) {
+                final var in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(position)), 64 * 1024));
+                while (position < bytes) {
+                    final var length = in.readInt();
+                    in.readInt();
+                    final var match = RecordEncoder.decode(in);
+                    position += RECORD_HEADER_BYTES + length;
+                    if (match.endedTimestamp >= toTimestamp) {
+                        return;
+                    }
+                    if (match.endedTimestamp >= fromTimestamp && (team == null || match.involves(team))) {
+                        result.add(match);
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // the segment was dropped by retention while the query ran
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Returns the offset of the last indexed record that ended before the timestamp; none of the records
+         * before it can be in the range.
+         */
+        private long startOffset(long fromTimestamp) {
+            final var entries = (count + SPARSE_INDEX_INTERVAL - 1) / SPARSE_INDEX_INTERVAL;
+            var low = 0;
+            var high = entries;
+            while (low < high) {
+                final var middle = (low + high) >>> 1;
+                if (indexTimestamps[middle] < fromTimestamp) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low == 0 ? 0L : indexOffsets[low - 1];
+        }
+
+        /**
+         * Rebuilds the index of a segment written before, up to its last intact record.
+         */
+        static Segment recover(Path file) throws IOException {
+            final var crc = new CRC32();
+            final var encoder = new RecordEncoder();
+            var segment = new Segment(file);
+            var body = new byte[256];
+            try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                while (true) {
+                    final int length;
+                    final int checksum;
+                    try {
+                        length = in.readInt();
+                        checksum = in.readInt();
+                        if (length < 1 || length > MAX_RECORD_BYTES) {
+                            return segment;
+                        }
+                        if (length > body.length) {
+                            body = new byte[Math.max(length, body.length * 2)];
+                        }
+                        in.readFully(body, 0, length);
+                    } catch (EOFException e) {
+                        return segment;
+                    }
+                    crc.reset();
+                    crc.update(body, 0, length);
+                    if ((int) crc.getValue() != checksum) {
+                        return segment;
+                    }
+                    final var match = RecordEncoder.decode(
+                        new DataInputStream(new ByteArrayInputStream(body, 0, length)));
+                    segment = segment.append(List.of(match), encoder);
+                }
+            }
+        }
+    }
+
+    /**
+     * A record is {@code [int length][int crc32][long ended][long created][long start sequence][homeTeam][awayTeam]
+     * [int home][int away][id]}, strings in modified UTF-8, the id empty when it is the default
+     * {@code homeTeam_awayTeam}. The start sequence is kept, so a match read back ranks as it did live and reading
+     * never draws a new sequence.
+     */
+    private static final class RecordEncoder {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+        private final DataOutputStream bodyOut = new DataOutputStream(body);
+        private final CRC32 crc = new CRC32();
+
+        void reset() {
+            bytes.reset();
+        }
+
+        void encode(ArchivedMatch match) throws IOException {
+            final var matchSummary = match.matchSummary;
+            body.reset();
+            bodyOut.writeLong(match.endedTimestamp);
+            bodyOut.writeLong(matchSummary.createdTimestamp);
+            bodyOut.writeLong(matchSummary.startSequence);
+            bodyOut.writeUTF(matchSummary.homeTeam);
+            bodyOut.writeUTF(matchSummary.awayTeam);
+            bodyOut.writeInt(matchSummary.homeTeamScore);
+            bodyOut.writeInt(matchSummary.awayTeamScore);
+            bodyOut.writeUTF(matchSummary.id.equals(defaultId(matchSummary)) ? "" : matchSummary.id);
+            final var encoded = body.toByteArray();
+            crc.reset();
+            crc.update(encoded);
+            final var header = ByteBuffer.allocate(RECORD_HEADER_BYTES)
+                .putInt(encoded.length)
+                .putInt((int) crc.getValue());
+            bytes.write(header.array());
+            bytes.write(encoded);
+        }
+
+        static ArchivedMatch decode(DataInputStream in) throws IOException {
+            final var endedTimestamp = in.readLong();
+            final var createdTimestamp = in.readLong();
+            final var startSequence = in.readLong();
+            final var homeTeam = in.readUTF();
+            final var awayTeam = in.readUTF();
+            final var homeTeamScore = in.readInt();
+            final var awayTeamScore = in.readInt();
+            final var id = in.readUTF();
+            final MatchSummary matchSummary = matchSummary()
+                .id(id.isEmpty() ? homeTeam + "_" + awayTeam : id)
+                .createdDate(createdTimestamp)
+                .startSequence(startSequence)
+                .homeTeam(homeTeam)
+                .awayTeam(awayTeam)
+                .homeTeamScore(homeTeamScore)
+                .awayTeamScore(awayTeamScore)
+                .build();
+            return new ArchivedMatch(matchSummary, endedTimestamp);
+        }
+
+        private static String defaultId(MatchSummary matchSummary) {
+            return matchSummary.homeTeam + "_" + matchSummary.awayTeam;
+        }
+    }
+
+    public static final class Builder {
+
+        private int maxMatches = 10_000;
+        private Duration maxAge;
+        private Path directory;
+        private int matchesPerSegment = 65_536;
+        private int maxSegments = 64;
+        private Clock clock = Clock.systemUTC();
+
+        public static Builder matchArchive() {
+            return new Builder();
+        }
+
+        /**
+         * How many ended matches to keep on the heap, 10 000 by default.
+         */
+        public Builder maxMatches(int maxMatches) {
+            if (maxMatches < 0) {
+                throw new IllegalArgumentException("maxMatches must not be negative, but is %d".formatted(maxMatches));
+            }
+            this.maxMatches = maxMatches;
+            return this;
+        }
+
+        /**
+         * How long to keep ended matches on the heap, unlimited by default.
+         */
+        public Builder maxAge(Duration maxAge) {
+            if (maxAge.isNegative()) {
+                throw new IllegalArgumentException("maxAge must not be negative, but is %s".formatted(maxAge));
+            }
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        /**
+         * Moves matches evicted from the heap to segment files in the directory instead of dropping them.
+         */
+        public Builder segments(Path directory, int matchesPerSegment, int maxSegments) {
+            if (matchesPerSegment < 1 || maxSegments < 1) {
+                throw new IllegalArgumentException(
+                    "matchesPerSegment and maxSegments must be positive, but are %d and %d"
+                        .formatted(matchesPerSegment, maxSegments));
+            }
+            this.directory = requireNonNull(directory);
+            this.matchesPerSegment = matchesPerSegment;
+            this.maxSegments = maxSegments;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = requireNonNull(clock);
+            return this;
+        }
+
+        /**
+         * Opens the archive, recovering the segments already in the directory, and starts archiving the matches
+         * that end on the repository.
+         */
+        public MatchArchive open(MatchSummaryRepository repository) throws IOException {
+            final var archive = new MatchArchive(this, requireNonNull(repository));
+            if (directory != null) {
+                try {
+                    archive.recover();
+                } catch (IOException | RuntimeException e) {
+                    archive.archiver.shutdown();
+                    archive.spiller.shutdown();
+                    throw e;
+                }
+            }
+            repository.addListener(archive);
+            return archive;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.ilzi.scorecard.repository;
+
+/**
+ * Thrown by writes to a match that is not live, so callers can tell it apart from other rejected writes without
+ * looking at the message.
+ */
+public class MatchNotFoundException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public MatchNotFoundException(String message) {
+        super(message);
+    }
+}
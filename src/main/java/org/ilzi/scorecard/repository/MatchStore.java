@@ -0,0 +1,32 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummary;
+
+/**
+ * Id-keyed storage of the live matches behind {@link MatchSummaryRepository}. The repository serializes writes to the
+ * same id, but writes to different ids and reads may arrive concurrently.
+ */
+public interface MatchStore {
+
+    /**
+     * Returns the match with the given id or null.
+     */
+    MatchSummary get(String matchId);
+
+    /**
+     * Stores the match unless one with the same id exists; returns the existing match or null.
+     */
+    MatchSummary putIfAbsent(MatchSummary matchSummary);
+
+    /**
+     * Replaces the stored match with the same id.
+     */
+    void replace(MatchSummary matchSummary);
+
+    /**
+     * Removes the match with the given id; returns it or null if there was none.
+     */
+    MatchSummary remove(String matchId);
+
+    int size();
+}
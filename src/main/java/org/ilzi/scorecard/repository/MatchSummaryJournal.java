@@ -0,0 +1,360 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+import static org.ilzi.scorecard.model.MatchSummary.Builder.matchSummary;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.ENDED;
+
+/**
+ * Optional append-only journal of the board changes of a repository. {@link #open} replays an existing journal into
+ * the repository and then appends every new change to it.
+ * <p>
+ * Writers only put their events on a lock-free queue; a single journal thread encodes everything queued since its
+ * last write into one buffer and writes it with one {@link FileChannel#write} call (group commit), forcing it to disk
+ * according to the {@link Fsync} policy.
+ * <p>
+ * A record is {@code [int length][int crc32][byte type][id][homeTeam][awayTeam][long created][long start sequence]
+ * [int home][int away]}, strings as {@code [short length][UTF-8 bytes]}; an ended match stores only its id. A torn or
+ * corrupt tail left by a crash is cut off during recovery.
+ */
+public class MatchSummaryJournal implements MatchSummaryListener, AutoCloseable {
+
+    public enum Fsync {
+        /** Force every group write to disk before reporting it as flushed. */
+        EVERY_WRITE,
+        /** Force at most once per interval, losing at most one interval of changes on a machine crash. */
+        INTERVAL,
+        /** Leave it to the operating system. */
+        NEVER
+    }
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final MatchSummaryRepository repository;
+    private final FileChannel channel;
+    private final Fsync fsync;
+    private final long fsyncIntervalNanos;
+
+    private final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writerParked = new AtomicBoolean();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private boolean unforced;
+    private long lastForce = System.nanoTime();
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private final Thread writer;
+
+    private MatchSummaryJournal(MatchSummaryRepository repository,
+                                FileChannel channel,
+                                Fsync fsync,
+                                Duration fsyncInterval) {
+        this.repository = repository;
+        this.channel = channel;
+        this.fsync = fsync;
+        this.fsyncIntervalNanos = fsync == Fsync.INTERVAL ? fsyncInterval.toNanos() : 0L;
+        this.writer = new Thread(this::run, "match-summary-journal");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Rebuilds the repository from the journal file, if there is one, and journals all its changes from now on. The
+     * repository is expected to be empty.
+     *
+     * @param fsyncInterval how often to force the journal to disk with {@link Fsync#INTERVAL}, ignored (and may be
+     *                      null) otherwise
+     */
+    public static MatchSummaryJournal open(MatchSummaryRepository repository,
+                                           Path file,
+                                           Fsync fsync,
+                                           Duration fsyncInterval) throws IOException {
+        requireNonNull(repository);
+        requireNonNull(fsync);
+        if (fsync == Fsync.INTERVAL && (fsyncInterval.isNegative() || fsyncInterval.isZero())) {
+            throw new IllegalArgumentException("fsyncInterval must be positive, but is %s".formatted(fsyncInterval));
+        }
+        final var channel = FileChannel.open(file, CREATE, READ, WRITE);
+        try {
+            final var recovered = new LinkedHashMap<String, MatchSummary>();
+            final var validBytes = read(file, recovered);
+            channel.truncate(validBytes);
+            channel.position(validBytes);
+            for (final var matchSummary : recovered.values()) {
+                repository.add(matchSummary);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        final var journal = new MatchSummaryJournal(repository, channel, fsync, fsyncInterval);
+        repository.addListener(journal);
+        journal.writer.start();
+        return journal;
+    }
+
+    /**
+     * Queues the change for the journal thread; never blocks and never touches the file.
+     */
+    @Override
+    public void onEvent(MatchSummaryEvent event) {
+        if (!closed) {
+            enqueue(event);
+        }
+    }
+
+    /**
+     * Records do not hold ranks, so the writers need not compute them for the journal.
+     */
+    @Override
+    public boolean needsRanks() {
+        return false;
+    }
+
+    /**
+     * Waits until every change queued before this call is written and forced to disk, whatever the fsync policy.
+     *
+     * @throws IOException when the journal failed to write, or stopped writing because it was closed or its thread
+     *                     died
+     */
+    public void flush() throws IOException, InterruptedException {
+        final var flushed = new CountDownLatch(1);
+        enqueue(flushed);
+        while (!flushed.await(IDLE_PARK_NANOS, TimeUnit.NANOSECONDS)) {
+            if (!writer.isAlive()) {
+                if (flushed.getCount() != 0) {
+                    checkFailure();
+                    throw new IOException("Journal stopped writing before the flush");
+                }
+                break;
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Detaches from the repository, writes what is still queued and closes the file.
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        repository.removeListener(this);
+        closed = true;
+        LockSupport.unpark(writer);
+        writer.join();
+        channel.close();
+        checkFailure();
+    }
+
+    private void enqueue(Object entry) {
+        queue.offer(entry);
+        if (writerParked.get() && writerParked.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        final var failure = this.failure;
+        if (failure != null) {
+            throw new IOException("Journal write failed", failure);
+        }
+    }
+
+    private void run() {
+        final var drained = new ArrayList<Object>();
+        while (true) {
+            for (Object entry; (entry = queue.poll()) != null; ) {
+                drained.add(entry);
+            }
+            if (drained.isEmpty()) {
+                if (closed) {
+                    forceIf(fsync != Fsync.NEVER);
+                    return;
+                }
+                forceIf(fsync == Fsync.INTERVAL && System.nanoTime() - lastForce >= fsyncIntervalNanos);
+                park();
+                continue;
+            }
+            write(drained);
+            drained.clear();
+        }
+    }
+
+    private void park() {
+        writerParked.set(true);
+        if (queue.isEmpty() && !closed) {
+            LockSupport.parkNanos(this, fsync == Fsync.INTERVAL && unforced ? fsyncIntervalNanos : IDLE_PARK_NANOS);
+        }
+        writerParked.set(false);
+    }
+
+    private void write(ArrayList<Object> entries) {
+        buffer.clear();
+        var flushRequested = false;
+        for (final var entry : entries) {
+            if (entry instanceof MatchSummaryEvent event) {
+                encode(event);
+            } else {
+                flushRequested = true;
+            }
+        }
+        buffer.flip();
+        if (failure == null && buffer.hasRemaining()) {
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                unforced = true;
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        forceIf(flushRequested
+            || fsync == Fsync.EVERY_WRITE
+            || fsync == Fsync.INTERVAL && System.nanoTime() - lastForce >= fsyncIntervalNanos);
+        for (final var entry : entries) {
+            if (entry instanceof CountDownLatch flushed) {
+                flushed.countDown();
+            }
+        }
+    }
+
+    private void forceIf(boolean condition) {
+        if (!condition || !unforced || failure != null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            unforced = false;
+            lastForce = System.nanoTime();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void encode(MatchSummaryEvent event) {
+        final var matchSummary = event.matchSummary;
+        final var id = matchSummary.id.getBytes(UTF_8);
+        final var ended = event.type == ENDED;
+        final var homeTeam = ended ? null : matchSummary.homeTeam.getBytes(UTF_8);
+        final var awayTeam = ended ? null : matchSummary.awayTeam.getBytes(UTF_8);
+        final var bodyLength = 1 + 2 + id.length + (ended ? 0 : 2 + homeTeam.length + 2 + awayTeam.length + 24);
+        ensureCapacity(HEADER_BYTES + bodyLength);
+
+        final var start = buffer.position();
+        buffer.position(start + HEADER_BYTES);
+        buffer.put((byte) event.type.ordinal());
+        putString(id);
+        if (!ended) {
+            putString(homeTeam);
+            putString(awayTeam);
+            buffer.putLong(matchSummary.createdTimestamp);
+            buffer.putLong(matchSummary.startSequence);
+            buffer.putInt(matchSummary.homeTeamScore);
+            buffer.putInt(matchSummary.awayTeamScore);
+        }
+        crc.reset();
+        crc.update(buffer.slice(start + HEADER_BYTES, bodyLength));
+        buffer.putInt(start, bodyLength);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void putString(byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void ensureCapacity(int recordBytes) {
+        if (buffer.remaining() < recordBytes) {
+            final var capacity = Math.max(buffer.capacity() * 2, buffer.position() + recordBytes);
+            final var grown = ByteBuffer.allocateDirect(capacity);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+
+    /**
+     * Replays all intact records into the map of live matches and returns the number of bytes they occupy.
+     */
+    private static long read(Path file, LinkedHashMap<String, MatchSummary> matchSummaries) throws IOException {
+        final var crc = new CRC32();
+        var validBytes = 0L;
+        var body = new byte[256];
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                final int length;
+                final int checksum;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 1 || length > MAX_RECORD_BYTES) {
+                        return validBytes;
+                    }
+                    if (length > body.length) {
+                        body = new byte[Math.max(length, body.length * 2)];
+                    }
+                    in.readFully(body, 0, length);
+                } catch (EOFException e) {
+                    return validBytes;
+                }
+                crc.reset();
+                crc.update(body, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    return validBytes;
+                }
+                replay(ByteBuffer.wrap(body, 0, length), matchSummaries);
+                validBytes += HEADER_BYTES + length;
+            }
+        }
+    }
+
+    private static void replay(ByteBuffer record, LinkedHashMap<String, MatchSummary> matchSummaries) {
+        final var type = MatchSummaryEvent.Type.values()[record.get()];
+        final var id = getString(record);
+        if (type == ENDED) {
+            matchSummaries.remove(id);
+            return;
+        }
+        matchSummaries.put(id, matchSummary()
+            .id(id)
+            .homeTeam(getString(record))
+            .awayTeam(getString(record))
+            .createdDate(record.getLong())
+            .startSequence(record.getLong())
+            .homeTeamScore(record.getInt())
+            .awayTeamScore(record.getInt())
+            .build());
+    }
+
+    private static String getString(ByteBuffer record) {
+        final var bytes = new byte[record.getShort() & 0xFFFF];
+        record.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+
+import java.util.List;
+
+/**
+ * Notified synchronously by the writing thread, while it still holds the lock of the changed match, so events of one
+ * match arrive in order. Writes to different matches notify concurrently, so their events may arrive out of version
+ * order. Implementations must be quick and must not block.
+ */
+@FunctionalInterface
+public interface MatchSummaryListener {
+
+    void onEvent(MatchSummaryEvent event);
+
+    /**
+     * Receives all events of one published board version at once, in the order the write made them; passes them to
+     * {@link #onEvent} one by one unless overridden.
+     */
+    default void onEvents(List<MatchSummaryEvent> events) {
+        for (final var event : events) {
+            onEvent(event);
+        }
+    }
+
+    /**
+     * Whether the events need {@link MatchSummaryEvent#rank} and {@link MatchSummaryEvent#previousRank}. Ranking a
+     * change costs the writer a lookup in the board while it holds the lock, and on a sharded board a count in every
+     * other shard; as long as no registered listener needs ranks, events carry
+     * {@link MatchSummaryEvent#NO_RANK} instead. Read once, when the listener is added.
+     */
+    default boolean needsRanks() {
+        return true;
+    }
+
+    /**
+     * The whole board was replaced without events, e.g. restored from a snapshot file; events of later writes
+     * continue from the new board version. Called with all matches locked.
+     */
+    default void onBoardReplaced() {
+    }
+}
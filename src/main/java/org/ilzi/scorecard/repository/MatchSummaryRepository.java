@@ -1,104 +1,994 @@
 package org.ilzi.scorecard.repository;
 
+import org.ilzi.scorecard.metrics.ScoreboardMetrics;
+import org.ilzi.scorecard.model.BatchResult;
+import org.ilzi.scorecard.model.Fixture;
 import org.ilzi.scorecard.model.MatchSummary;
-import org.ilzi.scorecard.util.cache.CachedReference;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+import org.ilzi.scorecard.model.ScoreUpdate;
+import org.ilzi.scorecard.repository.MatchSummarySnapshot.Change;
+import org.ilzi.scorecard.util.collection.PersistentSortedSet;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
-import static java.util.Comparator.comparing;
+import static java.util.Objects.requireNonNull;
+
+import static org.ilzi.scorecard.model.MatchHandle.NO_HANDLE;
+import static org.ilzi.scorecard.model.MatchHandle.matchHandle;
 
 import static org.ilzi.scorecard.model.MatchSummary.Builder.matchSummary;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.NO_RANK;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.ENDED;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.SCORE_UPDATED;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.STARTED;
 
+/**
+ * Writes lock only the stripe of the match they change, so updates to different matches run in parallel. The ordered
+ * board is published as an immutable, versioned {@link MatchSummarySnapshot} swapped with a CAS after every write:
+ * readers just read the current snapshot, never block and never recompute anything, while concurrent writers to
+ * different matches retry the swap.
+ * <p>
+ * With more than one shard, every shard owns a fixed subset of the lock stripes and publishes its own snapshot, so
+ * writers to different shards never retry each other's swaps. A single board version counts the publishes of all
+ * shards; readers merge the shards lazily as they were at one version, so the same version always means the same
+ * board. The merged board is reused by all readers until one of the shards changes.
+ * <p>
+ * Every live match is also reachable through its numeric {@link org.ilzi.scorecard.model.MatchHandle}. Every write
+ * puts the new state of the match into a {@link HandleIndex} keyed by the primitive handle, so handle reads come
+ * straight from the index and handle writes find their stripe from the id of the indexed match, without building,
+ * hashing or looking up a string.
+ * <p>
+ * Besides the board, any number of named {@link RankingView}s rank filtered matches by keys of their own. They are
+ * kept up to date by the same writes, so reading one never sorts anything.
+ */
 public class MatchSummaryRepository {
 
-    private final ConcurrentHashMap<String, MatchSummary> matchSummaries;
-    private final CachedReference<List<MatchSummary>> sortedMatchSummaries;
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+    /**
+     * Total score descending, then most recently started first, as one comparison of the packed
+     * {@link MatchSummary#sortKey()}. The id only keeps apart distinct summaries that share a start sequence.
+     */
+    private static final Comparator<MatchSummary> ORDERING = (first, second) -> {
+        final var bySortKey = Long.compare(second.sortKey(), first.sortKey());
+        return bySortKey != 0 ? bySortKey : first.id.compareTo(second.id);
+    };
+
+    private static final int PARALLEL_VALIDATION_THRESHOLD = 256;
+
+    private final MatchStore matchStore;
+    private final TeamRegistry teams = new TeamRegistry();
+    private final TeamIndex teamIndex = new TeamIndex();
+    private final ConcurrentHashMap<String, RankingView> views = new ConcurrentHashMap<>();
+    private final HandleIndex matchesByHandle;
+    private final AtomicReferenceArray<MatchSummarySnapshot> shards;
+    private final Lock[] locks;
+    private final List<MatchSummaryListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger rankedListeners = new AtomicInteger();
+    private final ScoreboardMetrics metrics;
+    private final boolean measured;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger versionWaiters = new AtomicInteger();
+    private final ReentrantLock versionLock = new ReentrantLock();
+    private final Condition versionChanged = versionLock.newCondition();
+    private volatile MergedBoard merged;
+
+    /**
+     * Attempts to read all shards at one moment before a reader falls back to the last merged board, which is older
+     * but just as consistent; a read only fails when a write lands in the middle of it or a writer stalls between
+     * swapping its shard and counting the write.
+     */
+    private static final int MAX_SHARD_READS = 64;
 
     public MatchSummaryRepository() {
-        this.matchSummaries = new ConcurrentHashMap<>();
-        this.sortedMatchSummaries = new CachedReference<>(this::getAllSynchronized);
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public MatchSummaryRepository(int lockStripes) {
+        this(new HeapMatchStore(), lockStripes);
+    }
+
+    public MatchSummaryRepository(MatchStore matchStore) {
+        this(matchStore, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public MatchSummaryRepository(MatchStore matchStore, int lockStripes) {
+        this(matchStore, lockStripes, 1);
+    }
+
+    /**
+     * @param shards number of independently published partitions of the board, rounded up to a power of two; the
+     *               number of lock stripes is raised to at least the number of shards
+     */
+    public MatchSummaryRepository(MatchStore matchStore, int lockStripes, int shards) {
+        this(matchStore, lockStripes, shards, ScoreboardMetrics.NONE);
+    }
+
+    /**
+     * @param metrics receives lock, publication and read measurements; {@link ScoreboardMetrics#NONE} turns
+     *                measuring off
+     */
+    public MatchSummaryRepository(MatchStore matchStore, int lockStripes, int shards, ScoreboardMetrics metrics) {
+        if (lockStripes < 1) {
+            throw new IllegalArgumentException("lockStripes must be positive, but is %d".formatted(lockStripes));
+        }
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be positive, but is %d".formatted(shards));
+        }
+        this.matchStore = requireNonNull(matchStore);
+        this.metrics = requireNonNull(metrics);
+        this.measured = metrics != ScoreboardMetrics.NONE;
+        this.shards = new AtomicReferenceArray<>(powerOfTwoAtLeast(shards));
+        final var emptyShards = new MatchSummarySnapshot[this.shards.length()];
+        for (int i = 0; i < emptyShards.length; i++) {
+            emptyShards[i] = new MatchSummarySnapshot(0L, PersistentSortedSet.empty(ORDERING));
+            this.shards.set(i, emptyShards[i]);
+        }
+        this.merged = new MergedBoard(emptyShards, MatchSummarySnapshot.merge(Arrays.asList(emptyShards)));
+        final var stripes = Math.max(powerOfTwoAtLeast(lockStripes), this.shards.length());
+        this.locks = new Lock[stripes];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.matchesByHandle = new HandleIndex(stripes);
     }
 
     public Optional<MatchSummary> find(String matchId) {
-        return Optional.ofNullable(matchSummaries.get(matchId));
+        return Optional.ofNullable(matchStore.get(matchId));
     }
 
     public MatchSummary get(String matchId) {
         return find(matchId)
             .orElseThrow(() -> new IllegalArgumentException("Match with id %s not found".formatted(matchId)));
     }
+
+    public Optional<MatchSummary> find(long matchHandle) {
+        return Optional.ofNullable(matchOf(matchHandle));
+    }
+
+    public MatchSummary get(long matchHandle) {
+        return find(matchHandle)
+            .orElseThrow(() -> new IllegalArgumentException("Match with handle %d not found".formatted(matchHandle)));
+    }
+
+    /**
+     * Returns the handle of the match between the teams, whether or not it is live. Teams are registered when they
+     * first play a started match; as long as one of them has not, there is no handle yet and
+     * {@link org.ilzi.scorecard.model.MatchHandle#NO_HANDLE} is returned, which matches no match. Looking up a handle
+     * never registers anything.
+     */
+    public long handleOf(String homeTeam, String awayTeam) {
+        final var homeTeamId = teams.idOf(homeTeam);
+        final var awayTeamId = teams.idOf(awayTeam);
+        return homeTeamId < 0 || awayTeamId < 0 ? NO_HANDLE : matchHandle(homeTeamId, awayTeamId);
+    }
     
     public List<MatchSummary> getAll() {
-        return sortedMatchSummaries.get();
+        return getSnapshot().matchSummaries();
+    }
+
+    /**
+     * Returns the live matches the team plays in, in board order. Looks them up in a per-team index, so it costs
+     * O(matches of the team) whatever the size of the board.
+     */
+    public List<MatchSummary> getByTeam(String team) {
+        final var matchIds = teamIndex.matchIdsOf(team);
+        final var matchSummaries = new ArrayList<MatchSummary>(matchIds.size());
+        for (final var matchId : matchIds) {
+            final var matchSummary = matchStore.get(matchId);
+            if (matchSummary != null) {
+                matchSummaries.add(matchSummary);
+            }
+        }
+        matchSummaries.sort(ORDERING);
+        return matchSummaries;
+    }
+
+    public List<MatchSummary> getTop(int k) {
+        return getPage(0, k);
+    }
+
+    public List<MatchSummary> getPage(int offset, int limit) {
+        return getSnapshot().page(offset, limit);
+    }
+
+    /**
+     * The current board. With several shards it combines the snapshots all shards had at one moment, see
+     * {@link MatchSummarySnapshot#merge}.
+     */
+    public MatchSummarySnapshot getSnapshot() {
+        if (shards.length() == 1) {
+            if (measured) {
+                metrics.snapshotRead(true);
+            }
+            return shards.get(0);
+        }
+        final var shardSnapshots = new MatchSummarySnapshot[shards.length()];
+        for (int attempt = 1; !readShards(shardSnapshots); attempt++) {
+            if (attempt == MAX_SHARD_READS) {
+                if (measured) {
+                    metrics.snapshotRead(true);
+                }
+                return merged.snapshot;
+            }
+            Thread.onSpinWait();
+        }
+        final var merged = this.merged;
+        if (merged != null && merged.isOf(shardSnapshots)) {
+            if (measured) {
+                metrics.snapshotRead(true);
+            }
+            return merged.snapshot;
+        }
+        final var snapshot = MatchSummarySnapshot.merge(Arrays.asList(shardSnapshots));
+        this.merged = new MergedBoard(shardSnapshots, snapshot);
+        if (measured) {
+            metrics.snapshotRead(false);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Reads the snapshot of every shard and returns whether they all were current at the moment the version was read.
+     * Every publish swaps its shard before it counts itself in the version, so the shard versions can only add up to
+     * the version read before them when no publish was in flight then and none completed while the shards were read.
+     * The versions of such cuts are unique: two of them with the same version hold the same matches.
+     */
+    private boolean readShards(MatchSummarySnapshot[] shardSnapshots) {
+        final var version = this.version.get();
+        var shardVersions = 0L;
+        for (int shard = 0; shard < shardSnapshots.length; shard++) {
+            shardSnapshots[shard] = shards.get(shard);
+            shardVersions += shardSnapshots[shard].version();
+        }
+        return shardVersions == version;
+    }
+
+    /**
+     * Returns the version of the board with a single volatile read, without merging shards. It is the version of
+     * {@link #getSnapshot()} once concurrent writes have returned.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Parks until the version differs from {@code version} or the timeout elapses, and returns the version then.
+     * Writers only signal when someone is waiting.
+     */
+    public long awaitVersionChange(long version, long timeout, TimeUnit unit) throws InterruptedException {
+        var current = this.version.get();
+        if (current != version) {
+            return current;
+        }
+        versionWaiters.incrementAndGet();
+        versionLock.lock();
+        try {
+            var remaining = unit.toNanos(timeout);
+            while ((current = this.version.get()) == version && remaining > 0) {
+                remaining = versionChanged.awaitNanos(remaining);
+            }
+            return current;
+        } finally {
+            versionLock.unlock();
+            versionWaiters.decrementAndGet();
+        }
     }
 
-    private List<MatchSummary> getAllSynchronized() {
-        return withReadLock(() -> matchSummaries.values().stream()
-            .sorted(comparing((MatchSummary m) -> m.homeTeamScore + m.awayTeamScore)
-                .thenComparing(m -> m.createdTimestamp)
-                .reversed())
-            .toList());
+    /**
+     * Registers a view of the live matches passing the filter, ranked by the key. Ranks the current board once while
+     * all writes wait; from then on every write keeps the view up to date.
+     */
+    public RankingView registerView(String name, RankingView.Key key, Predicate<MatchSummary> filter) {
+        final var view = new RankingView(name, key, filter, ORDERING);
+        final var registered = withStripes(allStripes(), () -> {
+            if (views.containsKey(name)) {
+                return false;
+            }
+            view.reset(getSnapshot().matchSummaries());
+            views.put(name, view);
+            return true;
+        });
+
+        if (!registered) {
+            throw new IllegalStateException("View %s already exists".formatted(name));
+        }
+        return view;
+    }
+
+    public void removeView(String name) {
+        if (views.remove(name) == null) {
+            throw new IllegalArgumentException("View %s not found".formatted(name));
+        }
+    }
+
+    public RankingView.Snapshot getView(String name) {
+        final var view = views.get(name);
+        if (view == null) {
+            throw new IllegalArgumentException("View %s not found".formatted(name));
+        }
+        return view.snapshot();
+    }
+
+    public void addListener(MatchSummaryListener listener) {
+        if (listener.needsRanks()) {
+            rankedListeners.incrementAndGet();
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(MatchSummaryListener listener) {
+        if (listeners.remove(listener) && listener.needsRanks()) {
+            rankedListeners.decrementAndGet();
+        }
     }
 
     public String create(String homeTeam, String awayTeam) {
-        final var matchSummary = matchSummary()
-            .id(homeTeam + "_" + awayTeam)
-            .homeTeam(homeTeam)
-            .awayTeam(awayTeam)
-            .homeTeamScore(0)
-            .awayTeamScore(0)
-            .build();
+        final var matchSummary = newMatchSummary(homeTeam, awayTeam);
         add(matchSummary);
         return matchSummary.id;
     }
 
     void add(MatchSummary matchSummary) {
-        final var result = withWriteLock(() -> matchSummaries.putIfAbsent(matchSummary.id, matchSummary));
+        final var result = withLock(matchSummary.id, () -> {
+            final var existing = matchStore.putIfAbsent(matchSummary);
+            if (existing == null) {
+                publish(List.of(new Change(STARTED, null, matchSummary)));
+            }
+            return existing;
+        });
 
         if (result != null) {
-            throw new IllegalStateException("Match with id %s already exists".formatted(matchSummary.id));
+            throw alreadyExists(matchSummary.id);
         }
-        sortedMatchSummaries.invalidate();
     }
 
     public void updateScore(String matchId, int newHomeTeamScore, int newAwayTeamScore) {
-        final var result = withWriteLock(() -> matchSummaries
-            .computeIfPresent(matchId, (key, oldValue) -> oldValue.withNewScore(newHomeTeamScore, newAwayTeamScore)));
+        final var result = withLock(matchId, () -> {
+            final var oldValue = matchStore.get(matchId);
+            if (oldValue == null) {
+                return null;
+            }
+            final var newValue = oldValue.withNewScore(newHomeTeamScore, newAwayTeamScore);
+            if (newValue == oldValue) {
+                return oldValue;
+            }
+            matchStore.replace(newValue);
+            publish(List.of(new Change(SCORE_UPDATED, oldValue, newValue)));
+            return newValue;
+        });
+        if (result == null) {
+            throw notFound(matchId);
+        }
+    }
+
+    public void updateScore(long matchHandle, int newHomeTeamScore, int newAwayTeamScore) {
+        final var result = withHandle(matchHandle, oldValue -> {
+            final var newValue = oldValue.withNewScore(newHomeTeamScore, newAwayTeamScore);
+            if (newValue != oldValue) {
+                matchStore.replace(newValue);
+                publish(List.of(new Change(SCORE_UPDATED, oldValue, newValue, matchHandle)));
+            }
+            return newValue;
+        });
         if (result == null) {
-            throw new IllegalStateException("Match with id %s not found".formatted(matchId));
+            throw new MatchNotFoundException("Match with handle %d not found".formatted(matchHandle));
         }
-        sortedMatchSummaries.invalidate();
     }
 
     public void remove(String matchId) {
-        final var removed = withWriteLock(() -> matchSummaries.remove(matchId));
-        if (removed != null) {
-            sortedMatchSummaries.invalidate();
+        withLock(matchId, () -> {
+            final var existing = matchStore.remove(matchId);
+            if (existing != null) {
+                publish(List.of(new Change(ENDED, existing, null)));
+            }
+            return existing;
+        });
+    }
+
+    public void remove(long matchHandle) {
+        withHandle(matchHandle, existing -> {
+            matchStore.remove(existing.id);
+            publish(List.of(new Change(ENDED, existing, null, matchHandle)));
+            return existing;
+        });
+    }
+
+    /**
+     * Creates all fixtures with one lock acquisition and one snapshot publication. Fixtures that cannot be created
+     * are reported in the result, the rest are created anyway.
+     */
+    public BatchResult<Fixture> createAll(Collection<Fixture> fixtures) {
+        return createAll(fixtures, false);
+    }
+
+    /**
+     * Creates all fixtures with one lock acquisition and one snapshot publication, or none of them if any cannot be
+     * created; the result then reports the fixtures that could not be created and nothing as succeeded.
+     */
+    public BatchResult<Fixture> createAllOrNothing(Collection<Fixture> fixtures) {
+        return createAll(fixtures, true);
+    }
+
+    /**
+     * Builds and validates the matches before taking any lock, in parallel on the common fork-join pool for large
+     * batches, and finds duplicates within the batch in the same pass that collects the ids to lock.
+     */
+    private BatchResult<Fixture> createAll(Collection<Fixture> fixtures, boolean allOrNothing) {
+        final var items = List.copyOf(fixtures);
+        final var matchSummaries = new MatchSummary[items.size()];
+        final var errors = new RuntimeException[items.size()];
+        final var range = IntStream.range(0, items.size());
+        (items.size() >= PARALLEL_VALIDATION_THRESHOLD ? range.parallel() : range).forEach(i -> {
+            try {
+                matchSummaries[i] = newMatchSummary(items.get(i).homeTeam, items.get(i).awayTeam);
+            } catch (RuntimeException e) {
+                errors[i] = e;
+            }
+        });
+        final var matchIds = new HashSet<String>(Math.max(16, items.size() * 2));
+        var valid = true;
+        for (int i = 0; i < matchSummaries.length; i++) {
+            if (matchSummaries[i] != null && !matchIds.add(matchSummaries[i].id)) {
+                errors[i] = alreadyExists(matchSummaries[i].id);
+                matchSummaries[i] = null;
+            }
+            valid &= errors[i] == null;
+        }
+        if (valid || !allOrNothing) {
+            withLocks(matchIds, () -> {
+                if (allOrNothing && anyExists(matchSummaries, errors)) {
+                    return null;
+                }
+                final var changes = new ArrayList<Change>(matchSummaries.length);
+                for (int i = 0; i < matchSummaries.length; i++) {
+                    if (matchSummaries[i] == null) {
+                        continue;
+                    }
+                    if (matchStore.putIfAbsent(matchSummaries[i]) != null) {
+                        errors[i] = alreadyExists(matchSummaries[i].id);
+                    } else {
+                        changes.add(new Change(STARTED, null, matchSummaries[i]));
+                    }
+                }
+                publish(changes);
+                return null;
+            });
+        }
+        final var succeeded = new ArrayList<Fixture>(items.size());
+        final var failed = new ArrayList<BatchResult.Failure<Fixture>>();
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                failed.add(new BatchResult.Failure<>(items.get(i), errors[i]));
+            } else {
+                succeeded.add(items.get(i));
+            }
+        }
+        if (allOrNothing && !failed.isEmpty()) {
+            succeeded.clear();
+        }
+        return new BatchResult<>(succeeded, failed);
+    }
+
+    /**
+     * Records an error for every match that exists already; returns whether there was any.
+     */
+    private boolean anyExists(MatchSummary[] matchSummaries, RuntimeException[] errors) {
+        var any = false;
+        for (int i = 0; i < matchSummaries.length; i++) {
+            if (matchStore.get(matchSummaries[i].id) != null) {
+                errors[i] = alreadyExists(matchSummaries[i].id);
+                any = true;
+            }
         }
+        return any;
+    }
+
+    /**
+     * Applies all updates in order with one lock acquisition and one snapshot publication. Updates that cannot be
+     * applied are reported in the result, the rest are applied anyway.
+     */
+    public BatchResult<ScoreUpdate> updateScores(Collection<ScoreUpdate> updates) {
+        final var succeeded = new ArrayList<ScoreUpdate>();
+        final var failed = new ArrayList<BatchResult.Failure<ScoreUpdate>>();
+        withLocks(updates.stream().map(update -> update.matchId).toList(), () -> {
+            final var changes = new ArrayList<Change>(updates.size());
+            for (final var update : updates) {
+                try {
+                    final var oldValue = matchStore.get(update.matchId);
+                    if (oldValue == null) {
+                        throw notFound(update.matchId);
+                    }
+                    final var newValue = oldValue.withNewScore(update.homeTeamScore, update.awayTeamScore);
+                    if (newValue != oldValue) {
+                        matchStore.replace(newValue);
+                        changes.add(new Change(SCORE_UPDATED, oldValue, newValue));
+                    }
+                    succeeded.add(update);
+                } catch (RuntimeException e) {
+                    failed.add(new BatchResult.Failure<>(update, e));
+                }
+            }
+            publish(changes);
+            return null;
+        });
+        return new BatchResult<>(succeeded, failed);
+    }
+
+    /**
+     * Removes all matches with one lock acquisition and one snapshot publication. Like {@link #remove(String)},
+     * unknown ids are ignored.
+     */
+    public BatchResult<String> removeAll(Collection<String> matchIds) {
+        withLocks(matchIds, () -> {
+            final var changes = new ArrayList<Change>(matchIds.size());
+            for (final var matchId : matchIds) {
+                final var existing = matchStore.remove(matchId);
+                if (existing != null) {
+                    changes.add(new Change(ENDED, existing, null));
+                }
+            }
+            publish(changes);
+            return null;
+        });
+        return new BatchResult<>(List.copyOf(matchIds), List.of());
     }
 
-    private <R> R withReadLock(Callable<R> callable) {
-        return withLock(lock.readLock(), callable);
+    /**
+     * Fills an empty repository with matches already in board order, e.g. read from a
+     * {@link MatchSummarySnapshotFile}. The ordered index is built directly from the input in O(n) and installed as
+     * a snapshot under a single acquisition of all lock stripes, so nothing is re-sorted or locked per match.
+     * Listeners are not notified.
+     * <p>
+     * The board version never goes back: the snapshot gets the given version if it is higher than the current one,
+     * the next version otherwise, so the same version always means the same board. Returns the version it got.
+     */
+    long restore(long version, List<MatchSummary> orderedMatchSummaries) {
+        return install(version, orderedMatchSummaries, true);
     }
 
-    private <R> R  withWriteLock(Callable<R> callable) {
-        return withLock(lock.writeLock(), callable);
+    /**
+     * Like {@link #restore}, but drops whatever the repository holds first; used by a {@link ReplicationFollower}
+     * to catch up with its leader.
+     */
+    long replaceAll(long version, List<MatchSummary> orderedMatchSummaries) {
+        return install(version, orderedMatchSummaries, false);
+    }
+
+    /**
+     * Atomically registers the listener and returns the board it sees changes of: no write is in progress while all
+     * stripes are held, so the listener receives exactly the changes made after the returned snapshot.
+     */
+    MatchSummarySnapshot subscribe(MatchSummaryListener listener) {
+        return withStripes(allStripes(), () -> {
+            addListener(listener);
+            return getSnapshot();
+        });
+    }
+
+    /**
+     * Applies the events of one write of another repository as one write: puts the state of every match as that
+     * repository has it, without validating it against the current state, and ends the matches of
+     * {@link org.ilzi.scorecard.model.MatchSummaryEvent.Type#ENDED} events. Used by a {@link ReplicationFollower},
+     * which receives the writes of its leader in version order.
+     */
+    void replicate(List<MatchSummaryEvent> events) {
+        final var matchIds = new ArrayList<String>(events.size());
+        for (final var event : events) {
+            matchIds.add(event.matchSummary.id);
+        }
+        withLocks(matchIds, () -> {
+            final var changes = new ArrayList<Change>(events.size());
+            for (final var event : events) {
+                final var matchSummary = event.matchSummary;
+                if (event.type == ENDED) {
+                    final var existing = matchStore.remove(matchSummary.id);
+                    if (existing != null) {
+                        changes.add(new Change(ENDED, existing, null));
+                    }
+                    continue;
+                }
+                final var existing = matchStore.putIfAbsent(matchSummary);
+                if (existing != null) {
+                    matchStore.replace(matchSummary);
+                }
+                changes.add(new Change(existing == null ? STARTED : SCORE_UPDATED, existing, matchSummary));
+            }
+            publish(changes);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the version of the installed board.
+     *
+     * @throws IllegalStateException when {@code requireEmpty} is set and the repository holds matches
+     */
+    private long install(long version, List<MatchSummary> orderedMatchSummaries, boolean requireEmpty) {
+        final var restored = new ArrayList<PersistentSortedSet<MatchSummary>>(shards.length());
+        if (shards.length() == 1) {
+            restored.add(PersistentSortedSet.ofSorted(ORDERING, orderedMatchSummaries));
+        } else {
+            final var perShard = new ArrayList<List<MatchSummary>>(shards.length());
+            for (int shard = 0; shard < shards.length(); shard++) {
+                perShard.add(new ArrayList<>());
+            }
+            for (final var matchSummary : orderedMatchSummaries) {
+                perShard.get(shardOf(matchSummary.id)).add(matchSummary);
+            }
+            for (final var matchSummaries : perShard) {
+                restored.add(PersistentSortedSet.ofSorted(ORDERING, matchSummaries));
+            }
+        }
+        return withStripes(allStripes(), () -> {
+            final var size = matchStore.size();
+            if (size != 0 && requireEmpty) {
+                throw new IllegalStateException("Cannot restore into a repository with %d matches".formatted(size));
+            }
+            final var current = this.version.get();
+            // only two empty boards are known to be the same board, anything else at the same version needs the next
+            final var same = version == current && size == 0 && orderedMatchSummaries.isEmpty();
+            final var installed = version > current || same ? version : current + 1;
+            for (final var matchSummary : getSnapshot().matchSummaries()) {
+                matchStore.remove(matchSummary.id);
+            }
+            teamIndex.clear();
+            matchesByHandle.clear();
+            for (final var matchSummary : orderedMatchSummaries) {
+                matchStore.putIfAbsent(matchSummary);
+                teamIndex.add(matchSummary);
+                matchesByHandle.put(handleOf(matchSummary), matchSummary);
+            }
+            for (final var view : views.values()) {
+                view.reset(orderedMatchSummaries);
+            }
+            for (int shard = 0; shard < restored.size(); shard++) {
+                shards.set(shard, new MatchSummarySnapshot(shard == 0 ? installed : 0L, restored.get(shard)));
+            }
+            this.version.set(installed);
+            signalVersionChange();
+            for (final var listener : listeners) {
+                listener.onBoardReplaced();
+            }
+            return installed;
+        });
+    }
+
+    private static MatchSummary newMatchSummary(String homeTeam, String awayTeam) {
+        return matchSummary()
+            .id(homeTeam + "_" + awayTeam)
+            .homeTeam(homeTeam)
+            .awayTeam(awayTeam)
+            .homeTeamScore(0)
+            .awayTeamScore(0)
+            .build();
+    }
+
+    /**
+     * Returns the live match with the handle, or null if there is none.
+     */
+    private MatchSummary matchOf(long matchHandle) {
+        return matchHandle == NO_HANDLE ? null : matchesByHandle.get(matchHandle);
+    }
+
+    /**
+     * Calls the function with the live match with the handle while the stripe of the match is locked, and returns what
+     * it returns, or null if there is no such match. The stripe is found from the indexed match; should the handle map
+     * to another match once the stripe is locked, the call starts over.
+     */
+    private <R> R withHandle(long matchHandle, Function<MatchSummary, R> function) {
+        while (true) {
+            final var indexed = matchOf(matchHandle);
+            if (indexed == null) {
+                return null;
+            }
+            final var result = withLock(locks[stripeOf(indexed.id)], () -> {
+                final var current = matchOf(matchHandle);
+                return current != null && current.id.equals(indexed.id) ? Optional.of(function.apply(current)) : null;
+            });
+            if (result != null) {
+                return result.get();
+            }
+        }
+    }
+
+    /**
+     * Registers the teams of the match if needed and returns its handle.
+     */
+    private long handleOf(MatchSummary matchSummary) {
+        return matchHandle(teams.intern(matchSummary.homeTeam), teams.intern(matchSummary.awayTeam));
+    }
+
+    private static IllegalStateException alreadyExists(String matchId) {
+        return new IllegalStateException("Match with id %s already exists".formatted(matchId));
+    }
+
+    private static MatchNotFoundException notFound(String matchId) {
+        return new MatchNotFoundException("Match with id %s not found".formatted(matchId));
+    }
+
+    /**
+     * Updates the team and handle indexes, swaps in a snapshot with all changes applied, updates the ranking views and
+     * notifies listeners. Must be called with the locks of all changed matches held.
+     */
+    private void publish(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (final var change : changes) {
+            final var matchHandle = change.matchHandle != NO_HANDLE
+                ? change.matchHandle
+                : handleOf(change.added != null ? change.added : change.removed);
+            if (change.added != null) {
+                matchesByHandle.put(matchHandle, change.added);
+            } else {
+                matchesByHandle.remove(matchHandle, change.removed.id);
+            }
+            if (change.removed == null) {
+                teamIndex.add(change.added);
+            } else if (change.added == null) {
+                teamIndex.remove(change.removed);
+            }
+        }
+        if (shards.length() == 1) {
+            publish(0, changes);
+        } else {
+            publishSharded(changes);
+        }
+        if (!views.isEmpty()) {
+            for (final var view : views.values()) {
+                view.apply(changes);
+            }
+        }
+    }
+
+    private void publishSharded(List<Change> changes) {
+        final var changesByShard = new ArrayList<List<Change>>(shards.length());
+        for (int shard = 0; shard < shards.length(); shard++) {
+            changesByShard.add(new ArrayList<>());
+        }
+        for (final var change : changes) {
+            changesByShard.get(shardOf(change.added != null ? change.added.id : change.removed.id)).add(change);
+        }
+        for (int shard = 0; shard < shards.length(); shard++) {
+            if (!changesByShard.get(shard).isEmpty()) {
+                publish(shard, changesByShard.get(shard));
+            }
+        }
+    }
+
+    private void publish(int shard, List<Change> changes) {
+        final var notify = !listeners.isEmpty();
+        final var events = notify && rankedListeners.get() > 0
+            ? new ArrayList<MatchSummaryEvent>(changes.size())
+            : null;
+        MatchSummarySnapshot previous;
+        MatchSummarySnapshot next;
+        final var start = measured ? System.nanoTime() : 0L;
+        var retries = -1;
+        do {
+            previous = shards.get(shard);
+            next = previous.apply(changes, events);
+            retries++;
+        } while (!shards.compareAndSet(shard, previous, next));
+        if (measured) {
+            metrics.snapshotPublished(System.nanoTime() - start, retries, boardSize());
+        }
+        final var version = this.version.addAndGet(next.version() - previous.version());
+        signalVersionChange();
+
+        if (notify) {
+            final var published = Collections.unmodifiableList(events != null
+                ? toBoardEvents(shard, changes, events, version)
+                : unrankedEvents(changes, version));
+            for (final var listener : listeners) {
+                listener.onEvents(published);
+            }
+        }
+    }
+
+    private List<MatchSummaryEvent> toBoardEvents(int shard,
+                                                  List<Change> changes,
+                                                  List<MatchSummaryEvent> events,
+                                                  long version) {
+        if (shards.length() > 1) {
+            for (int i = 0; i < events.size(); i++) {
+                events.set(i, toBoardEvent(shard, changes.get(i), events.get(i), version));
+            }
+        }
+        return events;
+    }
+
+    private static List<MatchSummaryEvent> unrankedEvents(List<Change> changes, long version) {
+        final var events = new ArrayList<MatchSummaryEvent>(changes.size());
+        for (final var change : changes) {
+            final var matchSummary = change.added != null ? change.added : change.removed;
+            events.add(new MatchSummaryEvent(change.type, matchSummary, NO_RANK, NO_RANK, version));
+        }
+        return events;
+    }
+
+    private void signalVersionChange() {
+        if (versionWaiters.get() == 0) {
+            return;
+        }
+        versionLock.lock();
+        try {
+            versionChanged.signalAll();
+        } finally {
+            versionLock.unlock();
+        }
+    }
+
+    /**
+     * Turns the ranks of a shard event into ranks on the whole board, counting the matches ranked before it in the
+     * other shards as they are right now, and gives it the board version its publish counted itself in with: every
+     * board snapshot with at least that version contains the change.
+     */
+    private MatchSummaryEvent toBoardEvent(int shard, Change change, MatchSummaryEvent event, long version) {
+        var previousRank = event.previousRank;
+        var rank = event.rank;
+        for (int other = 0; other < shards.length(); other++) {
+            final var otherSnapshot = shards.get(other);
+            if (other == shard) {
+                continue;
+            }
+            if (previousRank != NO_RANK) {
+                previousRank += otherSnapshot.countBefore(change.removed);
+            }
+            if (rank != NO_RANK) {
+                rank += otherSnapshot.countBefore(change.added);
+            }
+        }
+        return new MatchSummaryEvent(event.type, event.matchSummary, previousRank, rank, version);
+    }
+
+    private <R> R withLock(String matchId, Callable<R> callable) {
+        return withLock(locks[stripeOf(matchId)], callable);
+    }
+
+    /**
+     * Locks the stripes of all matches in ascending order, so concurrent batches cannot deadlock.
+     */
+    private <R> R withLocks(Collection<String> matchIds, Callable<R> callable) {
+        return withStripes(matchIds.stream().mapToInt(this::stripeOf).distinct().sorted().toArray(), callable);
+    }
+
+    private <R> R withStripes(int[] stripes, Callable<R> callable) {
+        var locked = 0;
+        var acquired = 0L;
+        try {
+            final var start = measured ? System.nanoTime() : 0L;
+            for (; locked < stripes.length; locked++) {
+                locks[stripes[locked]].lock();
+            }
+            if (measured) {
+                acquired = System.nanoTime();
+                metrics.lockWaited(acquired - start);
+            }
+            return callable.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            final var held = measured && locked == stripes.length;
+            while (locked > 0) {
+                locks[stripes[--locked]].unlock();
+            }
+            if (held) {
+                metrics.lockHeld(System.nanoTime() - acquired);
+            }
+        }
+    }
+
+    private int[] allStripes() {
+        final var stripes = new int[locks.length];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = i;
+        }
+        return stripes;
+    }
+
+    /**
+     * Shards own whole stripes: the shard is taken from the low bits of the stripe.
+     */
+    private int shardOf(String matchId) {
+        return stripeOf(matchId) & (shards.length() - 1);
+    }
+
+    private int stripeOf(String matchId) {
+        final var hash = matchId.hashCode();
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+
+    private static int powerOfTwoAtLeast(int value) {
+        var powerOfTwo = 1;
+        while (powerOfTwo < value) {
+            powerOfTwo <<= 1;
+        }
+        return powerOfTwo;
     }
 
     private <R> R withLock(Lock lock, Callable<R> callable) {
+        if (measured) {
+            return withMeasuredLock(lock, callable);
+        }
         lock.lock();
         try {
             return callable.call();
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException(e);
         } finally {
             lock.unlock();
         }
     }
+
+    private <R> R withMeasuredLock(Lock lock, Callable<R> callable) {
+        final var start = System.nanoTime();
+        lock.lock();
+        final var acquired = System.nanoTime();
+        metrics.lockWaited(acquired - start);
+        try {
+            return callable.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+            metrics.lockHeld(System.nanoTime() - acquired);
+        }
+    }
+
+    private int boardSize() {
+        var size = 0;
+        for (int shard = 0; shard < shards.length(); shard++) {
+            size += shards.get(shard).size();
+        }
+        return size;
+    }
+
+    /**
+     * A merged board together with the shard snapshots it was merged from.
+     */
+    private static final class MergedBoard {
+
+        final MatchSummarySnapshot[] shardSnapshots;
+        final MatchSummarySnapshot snapshot;
+
+        MergedBoard(MatchSummarySnapshot[] shardSnapshots, MatchSummarySnapshot snapshot) {
+            this.shardSnapshots = shardSnapshots;
+            this.snapshot = snapshot;
+        }
+
+        boolean isOf(MatchSummarySnapshot[] current) {
+            for (int shard = 0; shard < current.length; shard++) {
+                if (current[shard] != shardSnapshots[shard]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -0,0 +1,226 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+import org.ilzi.scorecard.util.collection.PersistentSortedSet;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+import static org.ilzi.scorecard.model.MatchHandle.NO_HANDLE;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.NO_RANK;
+
+/**
+ * Immutable, point-in-time view of the ordered board. Every write to the repository publishes a new snapshot with a
+ * version one higher than the previous one, so two snapshots with the same version always hold the same matches.
+ * <p>
+ * The board of a sharded repository is the combination of one snapshot per shard, see {@link #merge}; its version
+ * counts the writes to all shards.
+ */
+public final class MatchSummarySnapshot {
+
+    private final long version;
+    private final PersistentSortedSet<MatchSummary> matchSummaries;
+    private final List<PersistentSortedSet<MatchSummary>> shards;
+    private final List<MatchSummary> mergedView;
+    private final int size;
+
+    MatchSummarySnapshot(long version, PersistentSortedSet<MatchSummary> matchSummaries) {
+        this.version = version;
+        this.matchSummaries = matchSummaries;
+        this.shards = null;
+        this.mergedView = null;
+        this.size = matchSummaries.size();
+    }
+
+    private MatchSummarySnapshot(long version, List<PersistentSortedSet<MatchSummary>> shards, int size) {
+        this.version = version;
+        this.matchSummaries = null;
+        this.shards = shards;
+        this.mergedView = new MergedView();
+        this.size = size;
+    }
+
+    /**
+     * Combines the snapshots of all shards into one board, merged lazily when read. Its version is the sum of the
+     * shard versions, the number of writes to any shard. The repository only merges snapshots the shards had at the
+     * same moment, so like any board, two merged boards with the same version hold the same matches.
+     */
+    static MatchSummarySnapshot merge(List<MatchSummarySnapshot> shardSnapshots) {
+        if (shardSnapshots.size() == 1) {
+            return shardSnapshots.get(0);
+        }
+        final var shards = new ArrayList<PersistentSortedSet<MatchSummary>>(shardSnapshots.size());
+        var version = 0L;
+        var size = 0;
+        for (final var shardSnapshot : shardSnapshots) {
+            shards.add(shardSnapshot.matchSummaries);
+            version += shardSnapshot.version;
+            size += shardSnapshot.size;
+        }
+        return new MatchSummarySnapshot(version, shards, size);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Matches ordered by total score, most recently created first. The returned list is an unmodifiable view of the
+     * snapshot; nothing is copied. For a merged snapshot, the list is created once per snapshot and its first
+     * positional access copies the merged board once.
+     */
+    public List<MatchSummary> matchSummaries() {
+        return shards == null ? matchSummaries.asList() : mergedView;
+    }
+
+    /**
+     * Copies at most {@code limit} matches starting at position {@code offset}. Costs O(log n + limit), independent
+     * of the board size; for a merged snapshot O((offset + limit) log shards).
+     */
+    public List<MatchSummary> page(int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must be greater or equal to 0, but is %d".formatted(offset));
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must be greater or equal to 0, but is %d".formatted(limit));
+        }
+        final var iterator = iterator(offset);
+        final var page = new ArrayList<MatchSummary>(Math.min(limit, Math.max(size() - offset, 0)));
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return Collections.unmodifiableList(page);
+    }
+
+    /**
+     * Zero-based position of the match in this snapshot, {@link MatchSummaryEvent#NO_RANK} when it is not on it.
+     */
+    public int rankOf(MatchSummary matchSummary) {
+        if (matchSummary == null) {
+            return NO_RANK;
+        }
+        if (shards == null) {
+            return matchSummaries.indexOf(matchSummary);
+        }
+        var contained = false;
+        var rank = 0;
+        for (final var shard : shards) {
+            contained |= shard.indexOf(matchSummary) >= 0;
+            rank += shard.countLessThan(matchSummary);
+        }
+        return contained ? rank : NO_RANK;
+    }
+
+    /**
+     * Number of matches ranked before the given one, which does not need to be on the board.
+     */
+    int countBefore(MatchSummary matchSummary) {
+        if (shards == null) {
+            return matchSummaries.countLessThan(matchSummary);
+        }
+        var count = 0;
+        for (final var shard : shards) {
+            count += shard.countLessThan(matchSummary);
+        }
+        return count;
+    }
+
+    private Iterator<MatchSummary> iterator(int fromIndex) {
+        if (shards == null) {
+            return matchSummaries.iterator(fromIndex);
+        }
+        final var iterator = PersistentSortedSet.merge(shards);
+        for (int i = 0; i < fromIndex && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        return iterator;
+    }
+
+    /**
+     * Returns the next version with all changes applied in order. When {@code events} is not null it is refilled
+     * with one event per change, ranks taken right before and after that change.
+     */
+    MatchSummarySnapshot apply(List<Change> changes, List<MatchSummaryEvent> events) {
+        final var nextVersion = version + 1;
+        var updated = matchSummaries;
+        if (events != null) {
+            events.clear();
+        }
+        for (final var change : changes) {
+            var previousRank = NO_RANK;
+            if (change.removed != null) {
+                if (events != null) {
+                    previousRank = updated.indexOf(change.removed);
+                }
+                updated = updated.without(change.removed);
+            }
+            if (change.added != null) {
+                updated = updated.with(change.added);
+            }
+            if (events != null) {
+                final var rank = change.added != null ? updated.indexOf(change.added) : NO_RANK;
+                final var matchSummary = change.added != null ? change.added : change.removed;
+                events.add(new MatchSummaryEvent(change.type, matchSummary, previousRank, rank, nextVersion));
+            }
+        }
+        return new MatchSummarySnapshot(nextVersion, updated);
+    }
+
+    private final class MergedView extends AbstractList<MatchSummary> {
+
+        private volatile MatchSummary[] copy;
+
+        @Override
+        public MatchSummary get(int index) {
+            Objects.checkIndex(index, size);
+            var copy = this.copy;
+            if (copy == null) {
+                copy = toArray(new MatchSummary[size]);
+                this.copy = copy;
+            }
+            return copy[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<MatchSummary> iterator() {
+            return MatchSummarySnapshot.this.iterator(0);
+        }
+    }
+
+    /**
+     * A single write: {@code removed} replaced by {@code added}, either of which may be null. The handle of the match
+     * is {@link org.ilzi.scorecard.model.MatchHandle#NO_HANDLE} unless the writer already knows it.
+     */
+    static final class Change {
+
+        final MatchSummaryEvent.Type type;
+        final MatchSummary removed;
+        final MatchSummary added;
+        final long matchHandle;
+
+        Change(MatchSummaryEvent.Type type, MatchSummary removed, MatchSummary added) {
+            this(type, removed, added, NO_HANDLE);
+        }
+
+        Change(MatchSummaryEvent.Type type, MatchSummary removed, MatchSummary added, long matchHandle) {
+            this.type = type;
+            this.removed = removed;
+            this.added = added;
+            this.matchHandle = matchHandle;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.ilzi.scorecard.model.MatchSummary.Builder.matchSummary;
+
+/**
+ * Compact binary point-in-time copy of the board, for fast restarts.
+ * <p>
+ * The file holds a header {@code [int magic][long version][int teams][int matches]}, a table of the distinct team
+ * names, then the matches in board order as {@code [home team][away team][home score][away score][long created]
+ * [long start sequence][id]} with team indexes and scores as varints, and a CRC32 of everything before it. The id is
+ * only stored when it is not the default {@code homeTeam_awayTeam}. Since the matches are stored in board order,
+ * restoring builds the ordered index directly instead of sorting or inserting match by match.
+ */
+public final class MatchSummarySnapshotFile {
+
+    private static final int MAGIC = 0x53434231;
+    private static final int HEADER_BYTES = 4 + 8 + 4 + 4;
+    private static final int TRAILER_BYTES = 4;
+    private static final byte DEFAULT_ID = 0;
+    private static final byte EXPLICIT_ID = 1;
+
+    private MatchSummarySnapshotFile() {
+    }
+
+    /**
+     * Writes the snapshot to a temporary file next to the target, forces it to disk and atomically moves it over the
+     * target, so the target always holds a complete snapshot.
+     */
+    public static void write(MatchSummarySnapshot snapshot, Path file) throws IOException {
+        final var teams = new HashMap<String, Integer>();
+        final var teamNames = new ArrayList<byte[]>();
+        for (final var matchSummary : snapshot.matchSummaries()) {
+            addTeam(matchSummary.homeTeam, teams, teamNames);
+            addTeam(matchSummary.awayTeam, teams, teamNames);
+        }
+
+        final var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            final var out = new Output(channel);
+            out.ensureRemaining(HEADER_BYTES);
+            out.buffer.putInt(MAGIC);
+            out.buffer.putLong(snapshot.version());
+            out.buffer.putInt(teamNames.size());
+            out.buffer.putInt(snapshot.size());
+            for (final var name : teamNames) {
+                out.putBytes(name);
+            }
+            for (final var matchSummary : snapshot.matchSummaries()) {
+                out.ensureRemaining(4 * 5 + 8 + 8 + 1);
+                out.putVarint(teams.get(matchSummary.homeTeam));
+                out.putVarint(teams.get(matchSummary.awayTeam));
+                out.putVarint(matchSummary.homeTeamScore);
+                out.putVarint(matchSummary.awayTeamScore);
+                out.buffer.putLong(matchSummary.createdTimestamp);
+                out.buffer.putLong(matchSummary.startSequence);
+                if (matchSummary.id.equals(defaultId(matchSummary.homeTeam, matchSummary.awayTeam))) {
+                    out.buffer.put(DEFAULT_ID);
+                } else {
+                    out.buffer.put(EXPLICIT_ID);
+                    out.putBytes(matchSummary.id.getBytes(UTF_8));
+                }
+            }
+            out.finish();
+            channel.force(true);
+        }
+        Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+    /**
+     * Restores the snapshot into an empty repository; returns the version the restored board got, which is the one
+     * written to the file unless the repository had been there already.
+     *
+     * @throws IOException when the file is truncated or corrupt
+     */
+    public static long restore(Path file, MatchSummaryRepository repository) throws IOException {
+        final ByteBuffer in;
+        try (var channel = FileChannel.open(file, READ)) {
+            final var size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot file %s of %d bytes".formatted(file, size));
+            }
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        final var crc = new CRC32();
+        crc.update(in.slice(0, in.limit() - TRAILER_BYTES));
+        if ((int) crc.getValue() != in.getInt(in.limit() - TRAILER_BYTES) || in.getInt() != MAGIC) {
+            throw new IOException("Corrupt snapshot file %s".formatted(file));
+        }
+
+        final var version = in.getLong();
+        final var teams = new String[in.getInt()];
+        final var matchSummaries = new ArrayList<MatchSummary>(in.getInt());
+        for (int i = 0; i < teams.length; i++) {
+            teams[i] = getString(in);
+        }
+        while (in.remaining() > TRAILER_BYTES) {
+            final var homeTeam = teams[getVarint(in)];
+            final var awayTeam = teams[getVarint(in)];
+            final var homeTeamScore = getVarint(in);
+            final var awayTeamScore = getVarint(in);
+            final var createdTimestamp = in.getLong();
+            final var startSequence = in.getLong();
+            final var id = in.get() == EXPLICIT_ID ? getString(in) : defaultId(homeTeam, awayTeam);
+            matchSummaries.add(matchSummary()
+                .id(id)
+                .createdDate(createdTimestamp)
+                .startSequence(startSequence)
+                .homeTeam(homeTeam)
+                .awayTeam(awayTeam)
+                .homeTeamScore(homeTeamScore)
+                .awayTeamScore(awayTeamScore)
+                .build());
+        }
+        return repository.restore(version, matchSummaries);
+    }
+
+    /**
+     * Writes a snapshot of the repository every period, skipping periods in which the board did not change. Failed
+     * writes are reported to the failure handler and retried in the next period.
+     */
+    public static ScheduledFuture<?> scheduleWrites(MatchSummaryRepository repository,
+                                                    Path file,
+                                                    ScheduledExecutorService executor,
+                                                    Duration period,
+                                                    Consumer<IOException> failureHandler) {
+        final var lastWrittenVersion = new long[]{-1L};
+        final var periodNanos = period.toNanos();
+        return executor.scheduleAtFixedRate(() -> {
+            final var snapshot = repository.getSnapshot();
+            if (snapshot.version() == lastWrittenVersion[0]) {
+                return;
+            }
+            try {
+                write(snapshot, file);
+                lastWrittenVersion[0] = snapshot.version();
+            } catch (IOException e) {
+                failureHandler.accept(e);
+            }
+        }, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static void addTeam(String team, HashMap<String, Integer> teams, List<byte[]> teamNames) {
+        if (teams.putIfAbsent(team, teams.size()) == null) {
+            teamNames.add(team.getBytes(UTF_8));
+        }
+    }
+
+    private static String defaultId(String homeTeam, String awayTeam) {
+        return homeTeam + "_" + awayTeam;
+    }
+
+    private static String getString(ByteBuffer in) {
+        final var bytes = new byte[getVarint(in)];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        var value = 0;
+        for (int shift = 0; ; shift += 7) {
+            final var b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Buffered channel writer that keeps a running checksum of everything written.
+     */
+    private static final class Output {
+
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            ensureRemaining(5 + bytes.length);
+            putVarint(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+                if (buffer.capacity() < bytes) {
+                    buffer = ByteBuffer.allocate(bytes);
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            drain();
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
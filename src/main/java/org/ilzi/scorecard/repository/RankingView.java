@@ -0,0 +1,236 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.repository.MatchSummarySnapshot.Change;
+import org.ilzi.scorecard.util.collection.PersistentSortedSet;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The live matches that pass a filter, ranked by a key of their own instead of the total score. Registering a view
+ * with {@link MatchSummaryRepository#registerView} ranks the current board once; from then on every write moves only
+ * the matches it changes, in O(log n), and publishes a new immutable {@link Snapshot} with a CAS, like the board.
+ * <p>
+ * A view is published right after the board, so a reader may briefly see a write on the board but not on the view.
+ */
+public final class RankingView {
+
+    /**
+     * Ranks a match: higher keys rank first, equal keys fall back to the board order. The key is taken once per
+     * change of the match and kept until its next change.
+     */
+    @FunctionalInterface
+    public interface Key {
+
+        /**
+         * Largest difference between the two scores first.
+         */
+        Key GOAL_DIFFERENCE = of(
+            matchSummary -> Math.abs((long) matchSummary.homeTeamScore - matchSummary.awayTeamScore));
+
+        /**
+         * Most recently started or scored match first.
+         */
+        Key MOST_RECENTLY_CHANGED = (matchSummary, changeSequence) -> changeSequence;
+
+        /**
+         * @param changeSequence position of this change among all changes applied to the view, increasing
+         */
+        long keyOf(MatchSummary matchSummary, long changeSequence);
+
+        static Key of(ToLongFunction<MatchSummary> key) {
+            requireNonNull(key);
+            return (matchSummary, changeSequence) -> key.applyAsLong(matchSummary);
+        }
+    }
+
+    public final String name;
+
+    private final Key key;
+    private final Predicate<MatchSummary> filter;
+    private final Comparator<Ranked> ordering;
+    private final AtomicLong changeSequence = new AtomicLong();
+    private final ConcurrentHashMap<String, Ranked> rankedById = new ConcurrentHashMap<>();
+    private final AtomicReference<Snapshot> snapshot;
+
+    RankingView(String name, Key key, Predicate<MatchSummary> filter, Comparator<MatchSummary> boardOrdering) {
+        this.name = requireNonNull(name);
+        this.key = requireNonNull(key);
+        this.filter = requireNonNull(filter);
+        this.ordering = (first, second) -> {
+            final var byKey = Long.compare(second.key, first.key);
+            return byKey != 0 ? byKey : boardOrdering.compare(first.matchSummary, second.matchSummary);
+        };
+        this.snapshot = new AtomicReference<>(new Snapshot(0L, PersistentSortedSet.empty(ordering)));
+    }
+
+    public Snapshot snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Re-ranks the view from the board, lowest ranked match taken as changed first. Must be called with all locks of
+     * the repository held.
+     */
+    void reset(List<MatchSummary> orderedMatchSummaries) {
+        rankedById.clear();
+        final var ranked = new ArrayList<Ranked>();
+        for (int i = orderedMatchSummaries.size() - 1; i >= 0; i--) {
+            final var matchSummary = orderedMatchSummaries.get(i);
+            if (filter.test(matchSummary)) {
+                final var next = rank(matchSummary);
+                rankedById.put(matchSummary.id, next);
+                ranked.add(next);
+            }
+        }
+        ranked.sort(ordering);
+        snapshot.set(new Snapshot(snapshot.get().version + 1, PersistentSortedSet.ofSorted(ordering, ranked)));
+    }
+
+    /**
+     * Publishes a snapshot with the changes applied, skipping writes that left the match unchanged and matches that
+     * neither were nor are in the view. Must be called with the locks of all changed matches held, so the entries of
+     * those matches cannot change meanwhile.
+     */
+    void apply(List<Change> changes) {
+        Ranked[] moves = null;
+        var size = 0;
+        for (final var change : changes) {
+            if (change.added == change.removed) {
+                continue;
+            }
+            final var matchId = change.added != null ? change.added.id : change.removed.id;
+            final var next = change.added != null && filter.test(change.added) ? rank(change.added) : null;
+            final var previous = next != null ? rankedById.put(matchId, next) : rankedById.remove(matchId);
+            if (previous == null && next == null) {
+                continue;
+            }
+            if (moves == null) {
+                moves = new Ranked[changes.size() * 2];
+            }
+            moves[size++] = previous;
+            moves[size++] = next;
+        }
+        if (moves == null) {
+            return;
+        }
+        Snapshot previous;
+        Snapshot next;
+        do {
+            previous = snapshot.get();
+            var ranked = previous.ranked;
+            for (int i = 0; i < size; i += 2) {
+                if (moves[i] != null) {
+                    ranked = ranked.without(moves[i]);
+                }
+                if (moves[i + 1] != null) {
+                    ranked = ranked.with(moves[i + 1]);
+                }
+            }
+            next = new Snapshot(previous.version + 1, ranked);
+        } while (!snapshot.compareAndSet(previous, next));
+    }
+
+    private Ranked rank(MatchSummary matchSummary) {
+        return new Ranked(key.keyOf(matchSummary, changeSequence.incrementAndGet()), matchSummary);
+    }
+
+    /**
+     * Immutable, point-in-time content of a view; its version grows with every write that changes the view.
+     */
+    public static final class Snapshot {
+
+        private final long version;
+        private final PersistentSortedSet<Ranked> ranked;
+
+        private Snapshot(long version, PersistentSortedSet<Ranked> ranked) {
+            this.version = version;
+            this.ranked = ranked;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public int size() {
+            return ranked.size();
+        }
+
+        /**
+         * Matches in view order, as an unmodifiable view of the snapshot; nothing is copied.
+         */
+        public List<MatchSummary> matchSummaries() {
+            return new AbstractList<>() {
+                @Override
+                public MatchSummary get(int index) {
+                    return ranked.get(index).matchSummary;
+                }
+
+                @Override
+                public int size() {
+                    return ranked.size();
+                }
+
+                @Override
+                public Iterator<MatchSummary> iterator() {
+                    final var iterator = ranked.iterator(0);
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public MatchSummary next() {
+                            return iterator.next().matchSummary;
+                        }
+                    };
+                }
+            };
+        }
+
+        /**
+         * Copies at most {@code limit} matches starting at position {@code offset}, in O(log n + limit).
+         */
+        public List<MatchSummary> page(int offset, int limit) {
+            if (offset < 0) {
+                throw new IllegalArgumentException("offset must be greater or equal to 0, but is %d".formatted(offset));
+            }
+            if (limit < 0) {
+                throw new IllegalArgumentException("limit must be greater or equal to 0, but is %d".formatted(limit));
+            }
+            final var iterator = ranked.iterator(offset);
+            final var page = new ArrayList<MatchSummary>(Math.min(limit, Math.max(size() - offset, 0)));
+            while (page.size() < limit && iterator.hasNext()) {
+                page.add(iterator.next().matchSummary);
+            }
+            return Collections.unmodifiableList(page);
+        }
+    }
+
+    /**
+     * A match together with the key it was ranked by.
+     */
+    private static final class Ranked {
+
+        final long key;
+        final MatchSummary matchSummary;
+
+        Ranked(long key, MatchSummary matchSummary) {
+            this.key = key;
+            this.matchSummary = matchSummary;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import static java.util.Objects.requireNonNull;
+import static org.ilzi.scorecard.model.MatchSummary.Builder.matchSummary;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.NO_RANK;
+import static org.ilzi.scorecard.repository.ReplicationLeader.EVENTS;
+import static org.ilzi.scorecard.repository.ReplicationLeader.HEARTBEAT;
+import static org.ilzi.scorecard.repository.ReplicationLeader.SNAPSHOT;
+
+/**
+ * Keeps a repository in sync with the repository of a {@link ReplicationLeader}, so it can serve reads in another
+ * process. The repository must not be written to by anybody else.
+ * <p>
+ * A single thread reads the stream of the leader and applies it: a snapshot replaces the whole board, the events of
+ * one leader write are applied as one write. Writes arrive out of version order when the leader made them
+ * concurrently, so a write is held back until all writes of lower versions have been applied; the applied version is
+ * always one the leader's board actually had. As long as the repository is not sharded, its board version follows
+ * the leader's, except that it never goes back: after a snapshot of a leader that restarted at a lower version, it
+ * runs ahead of the leader's by a fixed offset. Listeners of the repository are notified of events, but not of the
+ * changes a snapshot makes. When the connection is lost the follower keeps serving its last state and reconnects,
+ * catching up from a new snapshot.
+ */
+public final class ReplicationFollower implements AutoCloseable {
+
+    private static final long NO_VERSION = -1L;
+
+    private final MatchSummaryRepository repository;
+    private final InetSocketAddress leader;
+    private final long reconnectDelayMillis;
+    private final Thread reader;
+    private final Object progress = new Object();
+    private final TreeMap<Long, List<MatchSummaryEvent>> heldBack = new TreeMap<>();
+
+    private volatile Socket socket;
+    private volatile boolean connected;
+    private volatile boolean closed;
+    private volatile long appliedVersion = NO_VERSION;
+    private volatile long leaderVersion = NO_VERSION;
+    private volatile long lastEventDelayMillis;
+    private volatile long snapshotsApplied;
+
+    private ReplicationFollower(MatchSummaryRepository repository,
+                                InetSocketAddress leader,
+                                Duration reconnectDelay) {
+        this.repository = repository;
+        this.leader = leader;
+        this.reconnectDelayMillis = reconnectDelay.toMillis();
+        this.reader = new Thread(this::run, "replication-follower-" + leader);
+        this.reader.setDaemon(true);
+    }
+
+    /**
+     * Starts following the leader in the background; use {@link #awaitVersion} to wait until it has caught up.
+     */
+    public static ReplicationFollower start(MatchSummaryRepository repository,
+                                            InetSocketAddress leader,
+                                            Duration reconnectDelay) {
+        requireNonNull(repository);
+        requireNonNull(leader);
+        if (reconnectDelay.isNegative()) {
+            throw new IllegalArgumentException(
+                "reconnectDelay must not be negative, but is %s".formatted(reconnectDelay));
+        }
+        final var follower = new ReplicationFollower(repository, leader, reconnectDelay);
+        follower.reader.start();
+        return follower;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Returns the leader version the board of this follower corresponds to: every write of the leader up to it has
+     * been applied. -1 before the first snapshot.
+     */
+    public long appliedVersion() {
+        return appliedVersion;
+    }
+
+    /**
+     * Returns the latest leader version this follower heard of, -1 before the first snapshot.
+     */
+    public long leaderVersion() {
+        return leaderVersion;
+    }
+
+    /**
+     * Returns how many board versions this follower is behind the leader, as of the last message from the leader.
+     */
+    public long lag() {
+        return Math.max(0L, leaderVersion - appliedVersion);
+    }
+
+    /**
+     * Returns the time between the leader publishing the last applied event and this follower applying it. Only
+     * meaningful when the clocks of both hosts are in sync.
+     */
+    public long lastEventDelayMillis() {
+        return lastEventDelayMillis;
+    }
+
+    /**
+     * Returns how many snapshots were applied: one per connection plus one per catch-up after falling behind.
+     */
+    public long snapshotsApplied() {
+        return snapshotsApplied;
+    }
+
+    /**
+     * Waits until the follower has applied at least the given leader version; returns false on timeout.
+     */
+    public boolean awaitVersion(long version, Duration timeout) throws InterruptedException {
+        final var deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (progress) {
+            while (appliedVersion < version) {
+                final var remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                progress.wait(remainingMillis);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Disconnects from the leader; the repository keeps its last state.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        final var socket = this.socket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+        }
+        reader.interrupt();
+        reader.join();
+    }
+
+    private void run() {
+        while (!closed) {
+            try (var socket = new Socket()) {
+                this.socket = socket;
+                if (closed) {
+                    return;
+                }
+                socket.connect(leader);
+                socket.setTcpNoDelay(true);
+                connected = true;
+                follow(new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024)));
+            } catch (IOException e) {
+                // the leader went away or is not there yet, retry below
+            } finally {
+                connected = false;
+            }
+            try {
+                Thread.sleep(reconnectDelayMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void follow(DataInputStream in) throws IOException {
+        while (true) {
+            final var kind = in.readByte();
+            switch (kind) {
+                case SNAPSHOT -> applySnapshot(in);
+                case EVENTS -> applyEvents(in);
+                case HEARTBEAT -> {
+                    leaderVersion = Math.max(leaderVersion, in.readLong());
+                    in.readLong();
+                }
+                default -> throw new IOException("Unknown replication frame %d".formatted(kind));
+            }
+        }
+    }
+
+    private void applySnapshot(DataInputStream in) throws IOException {
+        final var version = in.readLong();
+        final var size = in.readInt();
+        final var matchSummaries = new ArrayList<MatchSummary>(size);
+        for (int i = 0; i < size; i++) {
+            matchSummaries.add(readMatchSummary(in));
+        }
+        repository.replaceAll(version, matchSummaries);
+        heldBack.clear();
+        snapshotsApplied++;
+        // a restarted leader may be lower than the one heard of before
+        leaderVersion = version;
+        applied(version, version);
+    }
+
+    /**
+     * Applies the write unless a write of a lower version is still missing, then every held back write that follows
+     * without a gap.
+     */
+    private void applyEvents(DataInputStream in) throws IOException {
+        final var version = in.readLong();
+        final var publishedMillis = in.readLong();
+        final var size = in.readInt();
+        final var events = new ArrayList<MatchSummaryEvent>(size);
+        for (int i = 0; i < size; i++) {
+            final var type = MatchSummaryEvent.Type.values()[in.readByte()];
+            events.add(new MatchSummaryEvent(type, readMatchSummary(in), NO_RANK, NO_RANK, version));
+        }
+        if (version <= appliedVersion) {
+            return;
+        }
+        heldBack.put(version, events);
+        var applied = appliedVersion;
+        for (var next = heldBack.remove(applied + 1); next != null; next = heldBack.remove(applied + 1)) {
+            repository.replicate(next);
+            applied++;
+        }
+        if (applied != appliedVersion) {
+            lastEventDelayMillis = System.currentTimeMillis() - publishedMillis;
+        }
+        applied(applied, version);
+    }
+
+    private void applied(long version, long heardOf) {
+        synchronized (progress) {
+            appliedVersion = version;
+            if (leaderVersion < heardOf) {
+                leaderVersion = heardOf;
+            }
+            progress.notifyAll();
+        }
+    }
+
+    private static MatchSummary readMatchSummary(DataInputStream in) throws IOException {
+        return matchSummary()
+            .id(in.readUTF())
+            .homeTeam(in.readUTF())
+            .awayTeam(in.readUTF())
+            .createdDate(in.readLong())
+            .startSequence(in.readLong())
+            .homeTeamScore(in.readInt())
+            .awayTeamScore(in.readInt())
+            .build();
+    }
+}
@@ -0,0 +1,290 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Streams the changes of a repository to {@link ReplicationFollower}s over TCP.
+ * <p>
+ * Every follower connection gets its own sender thread and a bounded queue of writes, filled by the writing threads
+ * without blocking. A new follower first receives a snapshot of the board, then every write made after it with all
+ * its events, and a heartbeat with the current board version whenever nothing changed for a heartbeat interval. Every
+ * write publishes the next board version, but concurrent writes to different matches may queue out of version order;
+ * the follower puts them back in order. When a follower falls so far behind that its queue overflows, or the board
+ * is replaced, the queued writes are dropped and it catches up from a new snapshot instead.
+ * <p>
+ * Frames are {@code [byte kind]} followed by
+ * <ul>
+ *     <li>snapshot: {@code [long version][int matches][match]*}</li>
+ *     <li>events: {@code [long version][long published millis][int events]([byte type][match])*}, all events of the
+ *     write that published the version</li>
+ *     <li>heartbeat: {@code [long version][long millis]}</li>
+ * </ul>
+ * with a match written as {@code [id][homeTeam][awayTeam][long created][long start sequence][int home][int away]},
+ * strings in modified UTF-8 as written by {@link DataOutputStream#writeUTF}.
+ */
+public final class ReplicationLeader implements AutoCloseable {
+
+    static final byte SNAPSHOT = 1;
+    static final byte EVENTS = 2;
+    static final byte HEARTBEAT = 3;
+
+    private final MatchSummaryRepository repository;
+    private final ServerSocket serverSocket;
+    private final int followerBufferCapacity;
+    private final long heartbeatIntervalNanos;
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    private ReplicationLeader(MatchSummaryRepository repository,
+                              ServerSocket serverSocket,
+                              int followerBufferCapacity,
+                              Duration heartbeatInterval) {
+        this.repository = repository;
+        this.serverSocket = serverSocket;
+        this.followerBufferCapacity = followerBufferCapacity;
+        this.heartbeatIntervalNanos = heartbeatInterval.toNanos();
+        this.acceptor = new Thread(this::accept, "replication-leader-" + serverSocket.getLocalPort());
+        this.acceptor.setDaemon(true);
+    }
+
+    /**
+     * Starts accepting followers on the loopback interface.
+     *
+     * @param port                   the port to listen on, 0 for any free port
+     * @param followerBufferCapacity how many events a follower may be behind before it has to catch up from a
+     *                               snapshot
+     */
+    public static ReplicationLeader start(MatchSummaryRepository repository,
+                                          int port,
+                                          int followerBufferCapacity,
+                                          Duration heartbeatInterval) throws IOException {
+        return start(repository, new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+            followerBufferCapacity, heartbeatInterval);
+    }
+
+    public static ReplicationLeader start(MatchSummaryRepository repository,
+                                          InetSocketAddress address,
+                                          int followerBufferCapacity,
+                                          Duration heartbeatInterval) throws IOException {
+        requireNonNull(repository);
+        if (followerBufferCapacity < 1) {
+            throw new IllegalArgumentException(
+                "followerBufferCapacity must be positive, but is %d".formatted(followerBufferCapacity));
+        }
+        if (heartbeatInterval.isNegative() || heartbeatInterval.isZero()) {
+            throw new IllegalArgumentException(
+                "heartbeatInterval must be positive, but is %s".formatted(heartbeatInterval));
+        }
+        final var serverSocket = new ServerSocket();
+        try {
+            serverSocket.bind(address);
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+        final var leader = new ReplicationLeader(repository, serverSocket, followerBufferCapacity, heartbeatInterval);
+        leader.acceptor.start();
+        return leader;
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of connected followers.
+     */
+    public int followers() {
+        return sessions.size();
+    }
+
+    /**
+     * Stops accepting followers and disconnects the connected ones.
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        closed = true;
+        serverSocket.close();
+        acceptor.join();
+        for (final var session : sessions) {
+            session.close();
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                // closed, or the follower gave up connecting; either way keep going until closed
+                continue;
+            }
+            final var session = new Session(socket);
+            sessions.add(session);
+            session.sender.start();
+        }
+    }
+
+    /**
+     * The connection to one follower.
+     */
+    private final class Session {
+
+        private final Socket socket;
+        private final Thread sender;
+
+        Session(Socket socket) {
+            this.socket = socket;
+            this.sender = new Thread(this::run, "replication-sender-" + socket.getRemoteSocketAddress());
+            this.sender.setDaemon(true);
+        }
+
+        void close() throws InterruptedException {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+            sender.join();
+        }
+
+        private void run() {
+            try (socket) {
+                socket.setTcpNoDelay(true);
+                final var out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+                while (!closed) {
+                    final var subscription = new Subscription(followerBufferCapacity);
+                    final var snapshot = repository.subscribe(subscription);
+                    try {
+                        writeSnapshot(out, snapshot);
+                        out.flush();
+                        stream(out, subscription);
+                    } finally {
+                        repository.removeListener(subscription);
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // the follower disconnected or the leader is closing
+            } finally {
+                sessions.remove(this);
+            }
+        }
+
+        /**
+         * Sends the events of the subscription until it overflows.
+         */
+        private void stream(DataOutputStream out, Subscription subscription) throws IOException, InterruptedException {
+            while (!closed && !subscription.overflowed) {
+                final var pending = subscription.queue.poll(heartbeatIntervalNanos, TimeUnit.NANOSECONDS);
+                if (pending == null) {
+                    out.writeByte(HEARTBEAT);
+                    out.writeLong(repository.version());
+                    out.writeLong(System.currentTimeMillis());
+                    out.flush();
+                    continue;
+                }
+                writeEvents(out, pending.events, pending.publishedMillis);
+                if (subscription.queue.isEmpty()) {
+                    out.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffers the writes for one follower; marks itself overflowed instead of blocking the writer.
+     */
+    private static final class Subscription implements MatchSummaryListener {
+
+        private final ArrayBlockingQueue<Pending> queue;
+        private volatile boolean overflowed;
+
+        Subscription(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        @Override
+        public void onEvent(MatchSummaryEvent event) {
+            onEvents(List.of(event));
+        }
+
+        /**
+         * Followers rank the matches themselves.
+         */
+        @Override
+        public boolean needsRanks() {
+            return false;
+        }
+
+        @Override
+        public void onEvents(List<MatchSummaryEvent> events) {
+            if (!overflowed && !queue.offer(new Pending(events, System.currentTimeMillis()))) {
+                overflowed = true;
+            }
+        }
+
+        /**
+         * The follower cannot get from its version to the new one through events, so it needs a new snapshot.
+         */
+        @Override
+        public void onBoardReplaced() {
+            overflowed = true;
+        }
+    }
+
+    private record Pending(List<MatchSummaryEvent> events, long publishedMillis) {
+    }
+
+    static void writeSnapshot(DataOutputStream out, MatchSummarySnapshot snapshot) throws IOException {
+        out.writeByte(SNAPSHOT);
+        out.writeLong(snapshot.version());
+        out.writeInt(snapshot.size());
+        for (final var matchSummary : snapshot.matchSummaries()) {
+            writeMatchSummary(out, matchSummary);
+        }
+    }
+
+    /**
+     * Writes the events of one write, which all have the same version.
+     */
+    static void writeEvents(DataOutputStream out, List<MatchSummaryEvent> events, long publishedMillis)
+        throws IOException {
+        out.writeByte(EVENTS);
+        out.writeLong(events.get(0).version);
+        out.writeLong(publishedMillis);
+        out.writeInt(events.size());
+        for (final var event : events) {
+            out.writeByte(event.type.ordinal());
+            writeMatchSummary(out, event.matchSummary);
+        }
+    }
+
+    private static void writeMatchSummary(DataOutputStream out, MatchSummary matchSummary) throws IOException {
+        out.writeUTF(matchSummary.id);
+        out.writeUTF(matchSummary.homeTeam);
+        out.writeUTF(matchSummary.awayTeam);
+        out.writeLong(matchSummary.createdTimestamp);
+        out.writeLong(matchSummary.startSequence);
+        out.writeInt(matchSummary.homeTeamScore);
+        out.writeInt(matchSummary.awayTeamScore);
+    }
+}
@@ -0,0 +1,74 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummary;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Ids of the live matches of every team. A team plays in only a handful of live matches at a time, so each team maps
+ * to a small immutable array that is replaced on every change: lookups cost one hash lookup plus the matches of the
+ * team and never see a half-applied change. Teams without live matches are removed.
+ */
+public final class TeamIndex {
+
+    private static final String[] NONE = new String[0];
+
+    private final ConcurrentHashMap<String, String[]> matchIdsByTeam = new ConcurrentHashMap<>();
+
+    public void add(MatchSummary matchSummary) {
+        add(matchSummary.homeTeam, matchSummary.id);
+        if (!matchSummary.awayTeam.equals(matchSummary.homeTeam)) {
+            add(matchSummary.awayTeam, matchSummary.id);
+        }
+    }
+
+    public void remove(MatchSummary matchSummary) {
+        remove(matchSummary.homeTeam, matchSummary.id);
+        remove(matchSummary.awayTeam, matchSummary.id);
+    }
+
+    /**
+     * Returns the ids of the live matches of the team, in no particular order.
+     */
+    public List<String> matchIdsOf(String team) {
+        return List.of(matchIdsByTeam.getOrDefault(requireNonNull(team), NONE));
+    }
+
+    public void clear() {
+        matchIdsByTeam.clear();
+    }
+
+    private void add(String team, String matchId) {
+        matchIdsByTeam.compute(team, (ignored, matchIds) -> {
+            if (matchIds == null) {
+                return new String[]{matchId};
+            }
+            if (Arrays.asList(matchIds).contains(matchId)) {
+                return matchIds;
+            }
+            final var added = Arrays.copyOf(matchIds, matchIds.length + 1);
+            added[matchIds.length] = matchId;
+            return added;
+        });
+    }
+
+    private void remove(String team, String matchId) {
+        matchIdsByTeam.computeIfPresent(team, (ignored, matchIds) -> {
+            final var index = Arrays.asList(matchIds).indexOf(matchId);
+            if (index < 0) {
+                return matchIds;
+            }
+            if (matchIds.length == 1) {
+                return null;
+            }
+            final var removed = new String[matchIds.length - 1];
+            System.arraycopy(matchIds, 0, removed, 0, index);
+            System.arraycopy(matchIds, index + 1, removed, index, removed.length - index);
+            return removed;
+        });
+    }
+}
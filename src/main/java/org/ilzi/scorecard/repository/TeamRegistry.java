@@ -0,0 +1,72 @@
+package org.ilzi.scorecard.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Interns team names to small, dense int ids. Ids are never reused or released, the registry only grows with the
+ * number of distinct teams ever seen. The repository only registers the teams of started matches.
+ */
+public final class TeamRegistry {
+
+    private static final int NOT_REGISTERED = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private int size;
+
+    /**
+     * Returns the id of the team, registering it first if it is not known yet.
+     */
+    public int intern(String team) {
+        final var id = ids.get(requireNonNull(team));
+        return id != null ? id : register(team);
+    }
+
+    /**
+     * Returns the id of the team or -1 if it was never registered.
+     */
+    public int idOf(String team) {
+        return ids.getOrDefault(requireNonNull(team), NOT_REGISTERED);
+    }
+
+    public String name(int teamId) {
+        final var name = find(teamId);
+        if (name == null) {
+            throw new IllegalArgumentException("Team with id %d not found".formatted(teamId));
+        }
+        return name;
+    }
+
+    /**
+     * Returns the name of the team or null if no team has the id.
+     */
+    public String find(int teamId) {
+        final var names = this.names;
+        return teamId < 0 || teamId >= names.length ? null : names[teamId];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * The name is stored before the id is put into the map, so whoever sees an id can also resolve its name.
+     */
+    private synchronized int register(String team) {
+        final var existing = ids.get(team);
+        if (existing != null) {
+            return existing;
+        }
+        var names = this.names;
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = team;
+        this.names = names;
+        ids.put(team, size);
+        return size++;
+    }
+}
@@ -0,0 +1,391 @@
+package org.ilzi.scorecard.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+import org.ilzi.scorecard.repository.MatchNotFoundException;
+import org.ilzi.scorecard.service.BoardPayloadCache;
+import org.ilzi.scorecard.service.MatchSummaryJson;
+import org.ilzi.scorecard.service.MatchSummaryService;
+
+import javax.validation.ValidationException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Optional HTTP front end of a {@link MatchSummaryService}, built on the JDK's {@link HttpServer}.
+ * <ul>
+ *     <li>{@code GET /matches[?top=k]} - the board as JSON, served from the {@link BoardPayloadCache}</li>
+ *     <li>{@code POST /matches?homeTeam=..&awayTeam=..} - starts a match, 201 with its id</li>
+ *     <li>{@code GET /matches/{id}} - one match</li>
+ *     <li>{@code PUT /matches/{id}/score?homeTeamScore=..&awayTeamScore=..} - updates the score, 204</li>
+ *     <li>{@code DELETE /matches/{id}} - ends the match, 204</li>
+ *     <li>{@code GET /events} - Server-Sent Events: a {@code board} event with the whole board, then a
+ *     {@code change} event per board change, and a comment line every heartbeat interval while nothing changes</li>
+ * </ul>
+ * Unknown matches are answered with 404, matches that already exist with 409 and invalid input with 400.
+ * <p>
+ * Requests are handled on virtual threads. An SSE stream occupies one of them, parked while its client is idle, so a
+ * node can hold tens of thousands of streams. Every change is encoded once into a bounded ring of SSE frames that all
+ * streams read from; a stream that falls further behind than the ring gets the whole board again. Clients can drop
+ * {@code change} events whose version is not above the version of the last {@code board}.
+ */
+public class ScoreboardServer implements AutoCloseable {
+
+    public static final int DEFAULT_EVENT_BUFFER_CAPACITY = 4096;
+
+    private static final byte[] KEEP_ALIVE = ":\n\n".getBytes(UTF_8);
+
+    private final MatchSummaryService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final EventLog eventLog;
+    private final long heartbeatNanos;
+    private final AtomicInteger streams = new AtomicInteger();
+    private volatile boolean closed;
+
+    private ScoreboardServer(MatchSummaryService service,
+                             HttpServer server,
+                             int eventBufferCapacity,
+                             Duration heartbeatInterval) {
+        this.service = service;
+        this.server = server;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.eventLog = new EventLog(eventBufferCapacity);
+        this.heartbeatNanos = heartbeatInterval.toNanos();
+    }
+
+    public static ScoreboardServer start(MatchSummaryService service, InetSocketAddress address) throws IOException {
+        return start(service, address, DEFAULT_EVENT_BUFFER_CAPACITY, Duration.ofSeconds(15));
+    }
+
+    /**
+     * @param eventBufferCapacity how many changes an SSE stream may be behind before it gets the whole board again
+     * @param heartbeatInterval   how often an idle SSE stream gets a comment line, keeping proxies from closing it
+     */
+    public static ScoreboardServer start(MatchSummaryService service,
+                                         InetSocketAddress address,
+                                         int eventBufferCapacity,
+                                         Duration heartbeatInterval) throws IOException {
+        requireNonNull(service);
+        if (eventBufferCapacity < 1) {
+            throw new IllegalArgumentException(
+                "eventBufferCapacity must be positive, but is %d".formatted(eventBufferCapacity));
+        }
+        if (heartbeatInterval.isNegative() || heartbeatInterval.isZero()) {
+            throw new IllegalArgumentException(
+                "heartbeatInterval must be positive, but is %s".formatted(heartbeatInterval));
+        }
+        final var server = new ScoreboardServer(
+            service, HttpServer.create(address, 4096), eventBufferCapacity, heartbeatInterval);
+        server.server.setExecutor(server.executor);
+        server.server.createContext("/matches", server::handleMatches);
+        server.server.createContext("/events", server::handleEvents);
+        service.changes().subscribe(server.eventLog);
+        server.server.start();
+        return server;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of open SSE streams.
+     */
+    public int streams() {
+        return streams.get();
+    }
+
+    /**
+     * Ends all SSE streams and stops the server.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        eventLog.close();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleMatches(HttpExchange exchange) throws IOException {
+        try {
+            final var path = exchange.getRequestURI().getRawPath().substring("/matches".length());
+            final var parameters = parameters(exchange.getRequestURI().getRawQuery());
+            final var method = exchange.getRequestMethod();
+            if (path.isEmpty() || path.equals("/")) {
+                switch (method) {
+                    case "GET" -> {
+                        final var top = parameters.get("top");
+                        respond(exchange, 200, top == null
+                            ? service.getAllMatchSummariesPayload(BoardPayloadCache.Format.JSON)
+                            : service.getTopPayload(Integer.parseInt(top), BoardPayloadCache.Format.JSON));
+                    }
+                    case "POST" -> {
+                        final var matchId = service.startMatch(
+                            required(parameters, "homeTeam"), required(parameters, "awayTeam"));
+                        respond(exchange, 201, MatchSummaryJson.appendString(
+                            new StringBuilder("{\"id\":"), matchId).append('}'));
+                    }
+                    default -> respondError(exchange, 405, "Method %s not allowed".formatted(method));
+                }
+                return;
+            }
+            final var segments = path.substring(1).split("/", -1);
+            final var matchId = URLDecoder.decode(segments[0], UTF_8);
+            if (segments.length == 1 && method.equals("GET")) {
+                final var matchSummary = service.findMatchSummary(matchId);
+                if (matchSummary.isPresent()) {
+                    respond(exchange, 200,
+                        MatchSummaryJson.appendMatchSummary(new StringBuilder(), matchSummary.get()));
+                } else {
+                    respondError(exchange, 404, "Match with id %s not found".formatted(matchId));
+                }
+            } else if (segments.length == 1 && method.equals("DELETE")) {
+                service.endMatch(matchId);
+                exchange.sendResponseHeaders(204, -1);
+            } else if (segments.length == 2 && segments[1].equals("score") && method.equals("PUT")) {
+                service.updateScore(matchId,
+                    Integer.parseInt(required(parameters, "homeTeamScore")),
+                    Integer.parseInt(required(parameters, "awayTeamScore")));
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                respondError(exchange, 404, "No resource %s %s".formatted(method, exchange.getRequestURI()));
+            }
+        } catch (RuntimeException e) {
+            respondError(exchange, statusOf(e), String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleEvents(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            respondError(exchange, 405, "Method %s not allowed".formatted(exchange.getRequestMethod()));
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        streams.incrementAndGet();
+        try (var out = exchange.getResponseBody()) {
+            var cursor = eventLog.head();
+            writeBoard(out);
+            while (!closed) {
+                final var head = eventLog.awaitAfter(cursor, heartbeatNanos);
+                if (head != cursor) {
+                    cursor = eventLog.write(cursor, head, out) ? head : writeBoard(out);
+                } else if (eventLog.isClosed()) {
+                    // the change feed ended, nothing will follow
+                    break;
+                } else {
+                    out.write(KEEP_ALIVE);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            streams.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    /**
+     * Writes the whole board and returns the event sequence it includes at least.
+     */
+    private long writeBoard(OutputStream out) throws IOException {
+        final var head = eventLog.head();
+        out.write("event: board\ndata: ".getBytes(UTF_8));
+        write(out, service.getAllMatchSummariesPayload(BoardPayloadCache.Format.JSON));
+        out.write("\n\n".getBytes(UTF_8));
+        out.flush();
+        return head;
+    }
+
+    private static void respond(HttpExchange exchange, int status, CharSequence json) throws IOException {
+        respond(exchange, status, ByteBuffer.wrap(json.toString().getBytes(UTF_8)));
+    }
+
+    private static void respond(HttpExchange exchange, int status, ByteBuffer body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.remaining());
+        try (var out = exchange.getResponseBody()) {
+            write(out, body);
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String message) throws IOException {
+        respond(exchange, status, MatchSummaryJson.appendString(new StringBuilder("{\"error\":"), message).append('}'));
+    }
+
+    private static void write(OutputStream out, ByteBuffer payload) throws IOException {
+        Channels.newChannel(out).write(payload);
+    }
+
+    private static int statusOf(RuntimeException e) {
+        if (e instanceof MatchNotFoundException) {
+            return 404;
+        }
+        if (e instanceof IllegalStateException) {
+            return 409;
+        }
+        if (e instanceof IllegalArgumentException || e instanceof ValidationException) {
+            return 400;
+        }
+        return 500;
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        final var value = parameters.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Parameter %s is missing".formatted(name));
+        }
+        return value;
+    }
+
+    private static Map<String, String> parameters(String rawQuery) {
+        final var parameters = new HashMap<String, String>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (final var pair : rawQuery.split("&")) {
+            final var separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), UTF_8),
+                    URLDecoder.decode(pair.substring(separator + 1), UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Bounded ring of encoded {@code change} frames, filled by the single subscriber of the change feed. Waiting
+     * uses a {@link ReentrantLock}, not a monitor, so waiting virtual threads do not pin their carriers.
+     */
+    private static final class EventLog implements Flow.Subscriber<MatchSummaryEvent> {
+
+        private final Frame[] frames;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition appended = lock.newCondition();
+        private volatile long head;
+        private volatile boolean closed;
+        private Flow.Subscription subscription;
+
+        EventLog(int capacity) {
+            this.frames = new Frame[capacity];
+        }
+
+        long head() {
+            return head;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(MatchSummaryEvent event) {
+            final var json = MatchSummaryJson.appendEvent(new StringBuilder("event: change\ndata: "), event);
+            final var bytes = json.append("\n\n").toString().getBytes(UTF_8);
+            lock.lock();
+            try {
+                final var sequence = head + 1;
+                frames[(int) (sequence % frames.length)] = new Frame(sequence, bytes);
+                head = sequence;
+                appended.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            close();
+        }
+
+        @Override
+        public void onComplete() {
+            close();
+        }
+
+        void close() {
+            closed = true;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            lock.lock();
+            try {
+                appended.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Waits until there are frames after the cursor or the timeout elapses; returns the head.
+         */
+        long awaitAfter(long cursor, long timeoutNanos) throws InterruptedException {
+            if (head != cursor) {
+                return head;
+            }
+            lock.lock();
+            try {
+                var remaining = timeoutNanos;
+                while (head == cursor && !closed && remaining > 0) {
+                    remaining = appended.awaitNanos(remaining);
+                }
+                return head;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Writes the frames after {@code from} up to {@code to}; returns false, having written nothing or only a
+         * prefix, when some of them were overwritten already.
+         */
+        boolean write(long from, long to, OutputStream out) throws IOException {
+            if (to - from > frames.length) {
+                return false;
+            }
+            for (var sequence = from + 1; sequence <= to; sequence++) {
+                final var frame = frames[(int) (sequence % frames.length)];
+                if (frame == null || frame.sequence != sequence) {
+                    return false;
+                }
+                out.write(frame.bytes);
+            }
+            return true;
+        }
+
+        private record Frame(long sequence, byte[] bytes) {
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.ilzi.scorecard.service;
+
+import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.repository.MatchSummaryRepository;
+import org.ilzi.scorecard.repository.MatchSummarySnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Serialized forms of the current board, encoded once per board version and shared by all readers.
+ * <p>
+ * Payloads are kept in direct buffers, so a network layer can write them to a channel without copying them to the
+ * heap or between buffers; every caller gets its own read-only view with its own position. Payloads of a version
+ * are dropped as soon as a reader sees a newer version. At most {@link #MAX_PAYLOADS_PER_VERSION} distinct payloads
+ * (formats and top-K sizes) are kept per version, further ones are encoded for the caller without being cached.
+ */
+public class BoardPayloadCache {
+
+    public static final int MAX_PAYLOADS_PER_VERSION = 64;
+
+    /**
+     * <ul>
+     *     <li>{@code JSON}: {@code {"version":1,"matchSummaries":[{"id":..,"homeTeam":..,"awayTeam":..,
+     *     "homeTeamScore":..,"awayTeamScore":..,"createdTimestamp":..,"startSequence":..},..]}} in UTF-8</li>
+     *     <li>{@code BINARY}: {@code [long version][int matches]} followed by {@code [id][homeTeam][awayTeam]
+     *     [int home][int away][long created][long startSequence]} per match, strings as written by
+     *     {@link DataOutputStream#writeUTF}</li>
+     * </ul>
+     * Both carry the start sequence, so clients can reproduce the board order of matches with equal scores.
+     */
+    public enum Format {
+        JSON,
+        BINARY
+    }
+
+    private static final int ALL = -1;
+
+    private final MatchSummaryRepository repository;
+    private final AtomicReference<VersionPayloads> current = new AtomicReference<>();
+
+    public BoardPayloadCache(MatchSummaryRepository repository) {
+        this.repository = requireNonNull(repository);
+    }
+
+    /**
+     * Returns the whole board in the format.
+     */
+    public ByteBuffer getAll(Format format) {
+        return payload(requireNonNull(format), ALL);
+    }
+
+    /**
+     * Returns the first {@code k} matches of the board in the format.
+     */
+    public ByteBuffer getTop(int k, Format format) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative, but is %d".formatted(k));
+        }
+        return payload(requireNonNull(format), k);
+    }
+
+    private ByteBuffer payload(Format format, int k) {
+        final var snapshot = repository.getSnapshot();
+        final var payloads = payloadsOf(snapshot);
+        if (payloads == null) {
+            // a newer version is already cached, this reader raced with a writer
+            return encode(snapshot, format, k).asReadOnlyBuffer();
+        }
+        final var key = new Key(format, k);
+        var payload = payloads.payloads.get(key);
+        if (payload == null) {
+            if (payloads.payloads.size() >= MAX_PAYLOADS_PER_VERSION) {
+                return encode(snapshot, format, k).asReadOnlyBuffer();
+            }
+            payload = payloads.payloads.computeIfAbsent(key, ignored -> encode(payloads.snapshot, format, k));
+        }
+        return payload.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the payloads of the snapshot's version, replacing those of an older version, or null if a newer
+     * version is cached already.
+     */
+    private VersionPayloads payloadsOf(MatchSummarySnapshot snapshot) {
+        while (true) {
+            final var cached = current.get();
+            if (cached != null && cached.snapshot.version() == snapshot.version()) {
+                return cached;
+            }
+            if (cached != null && cached.snapshot.version() > snapshot.version()) {
+                return null;
+            }
+            final var fresh = new VersionPayloads(snapshot);
+            if (current.compareAndSet(cached, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static ByteBuffer encode(MatchSummarySnapshot snapshot, Format format, int k) {
+        final var matchSummaries = k == ALL ? snapshot.matchSummaries() : snapshot.page(0, k);
+        final var bytes = format == Format.JSON
+            ? encodeJson(snapshot.version(), matchSummaries)
+            : encodeBinary(snapshot.version(), matchSummaries);
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+
+    private static byte[] encodeJson(long version, List<MatchSummary> matchSummaries) {
+        final var json = new StringBuilder(64 + matchSummaries.size() * 128);
+        json.append("{\"version\":").append(version).append(",\"matchSummaries\":[");
+        var first = true;
+        for (final var matchSummary : matchSummaries) {
+            if (!first) {
+                json.append(',');
+            }
+            MatchSummaryJson.appendMatchSummary(json, matchSummary);
+            first = false;
+        }
+        return json.append("]}").toString().getBytes(UTF_8);
+    }
+
+    private static byte[] encodeBinary(long version, List<MatchSummary> matchSummaries) {
+        final var bytes = new ByteArrayOutputStream(16 + matchSummaries.size() * 56);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeLong(version);
+            out.writeInt(matchSummaries.size());
+            for (final var matchSummary : matchSummaries) {
+                out.writeUTF(matchSummary.id);
+                out.writeUTF(matchSummary.homeTeam);
+                out.writeUTF(matchSummary.awayTeam);
+                out.writeInt(matchSummary.homeTeamScore);
+                out.writeInt(matchSummary.awayTeamScore);
+                out.writeLong(matchSummary.createdTimestamp);
+                out.writeLong(matchSummary.startSequence);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private record Key(Format format, int k) {
+    }
+
+    private static final class VersionPayloads {
+
+        final MatchSummarySnapshot snapshot;
+        final ConcurrentHashMap<Key, ByteBuffer> payloads = new ConcurrentHashMap<>();
+
+        VersionPayloads(MatchSummarySnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package org.ilzi.scorecard.service;
+
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+import org.ilzi.scorecard.repository.MatchSummaryListener;
+import org.ilzi.scorecard.repository.MatchSummaryRepository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Fans repository events out to {@link Flow.Subscriber}s. Every subscriber gets its own buffer holding at most one
+ * pending event per match: a newer event of a match that has not been delivered yet is conflated into the pending
+ * one. Once the buffer holds {@code bufferCapacity} matches the oldest pending event is dropped, so a slow subscriber
+ * may miss intermediate states but never stalls a writer. Events are delivered on the executor, never on the writing
+ * thread; the writer only adds the event to each buffer.
+ * <p>
+ * Once {@link #attachTo attached} to a repository, the publisher listens to it only while it has subscribers, so
+ * without subscribers writes skip computing the ranks of events altogether.
+ */
+public class MatchSummaryEventPublisher implements Flow.Publisher<MatchSummaryEvent>, MatchSummaryListener {
+
+    public static final int DEFAULT_BUFFER_CAPACITY = 1024;
+
+    private final Executor executor;
+    private final int bufferCapacity;
+    private final List<ConflatingSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ReentrantLock subscriptionsLock = new ReentrantLock();
+    private MatchSummaryRepository repository;
+    private boolean listening;
+
+    public MatchSummaryEventPublisher() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BUFFER_CAPACITY);
+    }
+
+    public MatchSummaryEventPublisher(Executor executor, int bufferCapacity) {
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("bufferCapacity must be positive, but is %d".formatted(bufferCapacity));
+        }
+        this.executor = requireNonNull(executor);
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    /**
+     * Makes the repository the source of events, listened to from the first subscription until the last one is
+     * cancelled.
+     */
+    public void attachTo(MatchSummaryRepository repository) {
+        requireNonNull(repository);
+        subscriptionsLock.lock();
+        try {
+            if (this.repository != null) {
+                throw new IllegalStateException("Publisher is already attached to a repository");
+            }
+            this.repository = repository;
+            updateListening();
+        } finally {
+            subscriptionsLock.unlock();
+        }
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super MatchSummaryEvent> subscriber) {
+        final var subscription = new ConflatingSubscription(requireNonNull(subscriber));
+        subscriptionsLock.lock();
+        try {
+            subscriptions.add(subscription);
+            updateListening();
+        } finally {
+            subscriptionsLock.unlock();
+        }
+        subscriber.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onEvent(MatchSummaryEvent event) {
+        for (final var subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    private void unsubscribe(ConflatingSubscription subscription) {
+        subscriptionsLock.lock();
+        try {
+            subscriptions.remove(subscription);
+            updateListening();
+        } finally {
+            subscriptionsLock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with the subscriptions lock held.
+     */
+    private void updateListening() {
+        final var shouldListen = repository != null && !subscriptions.isEmpty();
+        if (shouldListen == listening) {
+            return;
+        }
+        if (shouldListen) {
+            repository.addListener(this);
+        } else {
+            repository.removeListener(this);
+        }
+        listening = shouldListen;
+    }
+
+    /**
+     * Guarded by a {@link ReentrantLock} rather than a monitor, so a virtual thread offering or draining events never
+     * pins its carrier.
+     */
+    private final class ConflatingSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super MatchSummaryEvent> subscriber;
+        private final LinkedHashMap<String, MatchSummaryEvent> pending = new LinkedHashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private long demand;
+        private boolean draining;
+        private boolean cancelled;
+
+        ConflatingSubscription(Flow.Subscriber<? super MatchSummaryEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void offer(MatchSummaryEvent event) {
+            lock.lock();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                final var matchId = event.matchSummary.id;
+                final var older = pending.get(matchId);
+                if (older != null) {
+                    final var conflated = older.conflate(event);
+                    if (conflated == null) {
+                        pending.remove(matchId);
+                    } else {
+                        pending.put(matchId, conflated);
+                    }
+                } else {
+                    if (pending.size() == bufferCapacity) {
+                        final var oldest = pending.keySet().iterator();
+                        oldest.next();
+                        oldest.remove();
+                    }
+                    pending.put(matchId, event);
+                }
+            } finally {
+                lock.unlock();
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("requested %d events, must be positive".formatted(n)));
+                return;
+            }
+            lock.lock();
+            try {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            } finally {
+                lock.unlock();
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                pending.clear();
+            } finally {
+                lock.unlock();
+            }
+            unsubscribe(this);
+        }
+
+        private void scheduleDrain() {
+            lock.lock();
+            try {
+                if (draining || cancelled || demand == 0 || pending.isEmpty()) {
+                    return;
+                }
+                draining = true;
+            } finally {
+                lock.unlock();
+            }
+            executor.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                final MatchSummaryEvent next;
+                lock.lock();
+                try {
+                    if (cancelled || demand == 0 || pending.isEmpty()) {
+                        draining = false;
+                        return;
+                    }
+                    final var oldest = pending.values().iterator();
+                    next = oldest.next();
+                    oldest.remove();
+                    demand--;
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    subscriber.onNext(next);
+                } catch (RuntimeException e) {
+                    cancel();
+                    subscriber.onError(e);
+                }
+            }
+        }
+    }
+}
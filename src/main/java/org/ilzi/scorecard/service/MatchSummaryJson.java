@@ -0,0 +1,65 @@
+package org.ilzi.scorecard.service;
+
+import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+
+/**
+ * Minimal JSON writer for the model, shared by the payload cache and the HTTP server.
+ */
+public final class MatchSummaryJson {
+
+    private MatchSummaryJson() {
+    }
+
+    /**
+     * Appends {@code {"id":..,"homeTeam":..,"awayTeam":..,"homeTeamScore":..,"awayTeamScore":..,
+     * "createdTimestamp":..,"startSequence":..}}.
+     */
+    public static StringBuilder appendMatchSummary(StringBuilder json, MatchSummary matchSummary) {
+        json.append("{\"id\":");
+        appendString(json, matchSummary.id);
+        json.append(",\"homeTeam\":");
+        appendString(json, matchSummary.homeTeam);
+        json.append(",\"awayTeam\":");
+        appendString(json, matchSummary.awayTeam);
+        return json.append(",\"homeTeamScore\":").append(matchSummary.homeTeamScore)
+            .append(",\"awayTeamScore\":").append(matchSummary.awayTeamScore)
+            .append(",\"createdTimestamp\":").append(matchSummary.createdTimestamp)
+            .append(",\"startSequence\":").append(matchSummary.startSequence)
+            .append('}');
+    }
+
+    /**
+     * Appends {@code {"type":..,"version":..,"previousRank":..,"rank":..,"matchSummary":{..}}}.
+     */
+    public static StringBuilder appendEvent(StringBuilder json, MatchSummaryEvent event) {
+        json.append("{\"type\":\"").append(event.type.name())
+            .append("\",\"version\":").append(event.version)
+            .append(",\"previousRank\":").append(event.previousRank)
+            .append(",\"rank\":").append(event.rank)
+            .append(",\"matchSummary\":");
+        return appendMatchSummary(json, event.matchSummary).append('}');
+    }
+
+    public static StringBuilder appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append("\\u%04x".formatted((int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"');
+    }
+}
@@ -1,20 +1,43 @@
 package org.ilzi.scorecard.service;
 
+import org.ilzi.scorecard.model.BatchResult;
+import org.ilzi.scorecard.model.Fixture;
 import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+import org.ilzi.scorecard.model.ScoreUpdate;
 import org.ilzi.scorecard.repository.MatchSummaryRepository;
+import org.ilzi.scorecard.repository.MatchSummarySnapshot;
+import org.ilzi.scorecard.repository.RankingView;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 public class MatchSummaryService {
 
     private final MatchSummaryRepository matchSummaryRepository;
+    private final MatchSummaryEventPublisher eventPublisher;
+    private final BoardPayloadCache payloadCache;
 
     public MatchSummaryService() {
         this(new MatchSummaryRepository());
     }
 
     public MatchSummaryService(MatchSummaryRepository matchSummaryRepository) {
+        this(matchSummaryRepository, new MatchSummaryEventPublisher());
+    }
+
+    public MatchSummaryService(MatchSummaryRepository matchSummaryRepository,
+                               MatchSummaryEventPublisher eventPublisher) {
         this.matchSummaryRepository = matchSummaryRepository;
+        this.eventPublisher = eventPublisher;
+        this.payloadCache = new BoardPayloadCache(matchSummaryRepository);
+        eventPublisher.attachTo(matchSummaryRepository);
     }
 
     public String startMatch(String homeTeam, String awayTeam) {
@@ -29,7 +52,121 @@ public class MatchSummaryService {
         matchSummaryRepository.remove(matchId);
     }
 
+    /**
+     * Returns the numeric handle of the match between the teams, or
+     * {@link org.ilzi.scorecard.model.MatchHandle#NO_HANDLE} if one of them never played a started match. Handle
+     * based calls resolve the match without building or hashing its string id.
+     */
+    public long matchHandle(String homeTeam, String awayTeam) {
+        return matchSummaryRepository.handleOf(homeTeam, awayTeam);
+    }
+
+    public void updateScore(long matchHandle, int homeTeamScore, int awayTeamScore) {
+        matchSummaryRepository.updateScore(matchHandle, homeTeamScore, awayTeamScore);
+    }
+
+    public void endMatch(long matchHandle) {
+        matchSummaryRepository.remove(matchHandle);
+    }
+
+    public MatchSummary getMatchSummary(String matchId) {
+        return matchSummaryRepository.get(matchId);
+    }
+
+    public Optional<MatchSummary> findMatchSummary(String matchId) {
+        return matchSummaryRepository.find(matchId);
+    }
+
+    public MatchSummary getMatchSummary(long matchHandle) {
+        return matchSummaryRepository.get(matchHandle);
+    }
+
+    public BatchResult<Fixture> startMatches(Collection<Fixture> fixtures) {
+        return matchSummaryRepository.createAll(fixtures);
+    }
+
+    /**
+     * Starts all fixtures or, if any of them cannot be started, none; see
+     * {@link MatchSummaryRepository#createAllOrNothing}.
+     */
+    public BatchResult<Fixture> startMatchesAllOrNothing(Collection<Fixture> fixtures) {
+        return matchSummaryRepository.createAllOrNothing(fixtures);
+    }
+
+    public BatchResult<ScoreUpdate> updateScores(Collection<ScoreUpdate> updates) {
+        return matchSummaryRepository.updateScores(updates);
+    }
+
+    public BatchResult<String> endMatches(Collection<String> matchIds) {
+        return matchSummaryRepository.removeAll(matchIds);
+    }
+
     public List<MatchSummary> getAllMatchSummaries() {
         return matchSummaryRepository.getAll();
     }
+
+    /**
+     * Returns the current board unless its version is still {@code sinceVersion}. An unchanged board costs a single
+     * volatile read; pass {@link MatchSummarySnapshot#version()} of the returned board to the next call.
+     */
+    public Optional<MatchSummarySnapshot> getAllIfChanged(long sinceVersion) {
+        return matchSummaryRepository.version() == sinceVersion
+            ? Optional.empty()
+            : Optional.of(matchSummaryRepository.getSnapshot());
+    }
+
+    /**
+     * Long-poll variant of {@link #getAllIfChanged}: parks until the board changes from {@code sinceVersion} or the
+     * timeout elapses, and returns empty on timeout.
+     */
+    public Optional<MatchSummarySnapshot> awaitChange(long sinceVersion, Duration timeout) throws InterruptedException {
+        matchSummaryRepository.awaitVersionChange(sinceVersion, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        return getAllIfChanged(sinceVersion);
+    }
+
+    /**
+     * Returns {@link #getAllMatchSummaries()} serialized in the format, as a read-only view of a payload encoded once
+     * per board version, see {@link BoardPayloadCache}.
+     */
+    public ByteBuffer getAllMatchSummariesPayload(BoardPayloadCache.Format format) {
+        return payloadCache.getAll(format);
+    }
+
+    public ByteBuffer getTopPayload(int k, BoardPayloadCache.Format format) {
+        return payloadCache.getTop(k, format);
+    }
+
+    /**
+     * Returns the live matches of the team in board order, without scanning the board.
+     */
+    public List<MatchSummary> getMatchSummariesOf(String team) {
+        return matchSummaryRepository.getByTeam(team);
+    }
+
+    /**
+     * Registers a named board of the matches passing the filter, ranked by the key and kept up to date by every
+     * write, see {@link RankingView}.
+     */
+    public void registerRankingView(String name, RankingView.Key key, Predicate<MatchSummary> filter) {
+        matchSummaryRepository.registerView(name, key, filter);
+    }
+
+    public List<MatchSummary> getRankingView(String name) {
+        return matchSummaryRepository.getView(name).matchSummaries();
+    }
+
+    public List<MatchSummary> getTop(int k) {
+        return matchSummaryRepository.getTop(k);
+    }
+
+    public List<MatchSummary> getPage(int offset, int limit) {
+        return matchSummaryRepository.getPage(offset, limit);
+    }
+
+    /**
+     * Stream of board changes. Slow subscribers get conflated events, see {@link MatchSummaryEventPublisher}.
+     */
+    public Flow.Publisher<MatchSummaryEvent> changes() {
+        return eventPublisher;
+    }
 }
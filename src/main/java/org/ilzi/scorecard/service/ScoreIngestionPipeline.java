@@ -0,0 +1,252 @@
+package org.ilzi.scorecard.service;
+
+import org.ilzi.scorecard.model.BatchResult;
+import org.ilzi.scorecard.model.ScoreUpdate;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+import static org.ilzi.scorecard.model.ScoreUpdate.scoreUpdate;
+
+/**
+ * Optional ingestion mode for score updates. Callers enqueue updates into a bounded, pre-allocated ring buffer and
+ * return immediately; a single writer thread drains everything pending, coalesces the updates of each match into the
+ * latest submitted score and applies them with one {@link MatchSummaryService#updateScores} call, i.e. one snapshot
+ * publication per drain cycle. Since the updates are applied asynchronously, failures are reported to the failure
+ * handler instead of the caller. A failing handler never stops the writer: what it throws goes to the writer thread's
+ * uncaught exception handler and the writer moves on.
+ */
+public class ScoreIngestionPipeline implements AutoCloseable {
+
+    private static final long WRITER_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    public enum Backpressure {
+        /** Wait until the writer makes room. */
+        BLOCK,
+        /** Discard the oldest pending update. */
+        DROP_OLDEST,
+        /** Reject the update with a {@link RejectedExecutionException}. */
+        FAIL
+    }
+
+    private final MatchSummaryService service;
+    private final Backpressure backpressure;
+    private final Consumer<BatchResult.Failure<ScoreUpdate>> failureHandler;
+
+    private final int capacity;
+    private final String[] matchIds;
+    private final int[] homeTeamScores;
+    private final int[] awayTeamScores;
+    private final String[] drainedMatchIds;
+    private final int[] drainedHomeTeamScores;
+    private final int[] drainedAwayTeamScores;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition processed = lock.newCondition();
+    private int head;
+    private int size;
+    private long accepted;
+    private long completed;
+    private long dropped;
+    private boolean closed;
+
+    private final Thread writer;
+
+    public ScoreIngestionPipeline(MatchSummaryService service,
+                                  int capacity,
+                                  Backpressure backpressure,
+                                  Consumer<BatchResult.Failure<ScoreUpdate>> failureHandler) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive, but is %d".formatted(capacity));
+        }
+        this.service = requireNonNull(service);
+        this.backpressure = requireNonNull(backpressure);
+        this.failureHandler = requireNonNull(failureHandler);
+        this.capacity = capacity;
+        this.matchIds = new String[capacity];
+        this.homeTeamScores = new int[capacity];
+        this.awayTeamScores = new int[capacity];
+        this.drainedMatchIds = new String[capacity];
+        this.drainedHomeTeamScores = new int[capacity];
+        this.drainedAwayTeamScores = new int[capacity];
+        this.writer = new Thread(this::run, "score-ingestion");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Enqueues a score update, applying the backpressure policy when the buffer is full.
+     *
+     * @throws RejectedExecutionException when the pipeline is closed, when the buffer is full and the policy is
+     *                                    {@link Backpressure#FAIL}, or when interrupted while waiting for space
+     */
+    public void submit(String matchId, int homeTeamScore, int awayTeamScore) {
+        requireNonNull(matchId);
+        lock.lock();
+        try {
+            checkOpen();
+            while (size == capacity) {
+                switch (backpressure) {
+                    case BLOCK -> awaitSpace();
+                    case DROP_OLDEST -> dropOldest();
+                    case FAIL -> throw new RejectedExecutionException("Ingestion buffer is full");
+                }
+                checkOpen();
+            }
+            final var tail = (head + size) % capacity;
+            matchIds[tail] = matchId;
+            homeTeamScores[tail] = homeTeamScore;
+            awayTeamScores[tail] = awayTeamScore;
+            size++;
+            accepted++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every update submitted before this call has been applied or dropped.
+     *
+     * @throws IllegalStateException when the writer thread has stopped before applying them
+     */
+    public void flush() throws InterruptedException {
+        lock.lock();
+        try {
+            final var target = accepted;
+            while (completed < target) {
+                if (!writer.isAlive()) {
+                    throw new IllegalStateException(
+                        "Ingestion writer stopped with %d updates pending".formatted(target - completed));
+                }
+                processed.awaitNanos(WRITER_CHECK_NANOS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long droppedUpdates() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting updates, applies the ones still pending and waits for the writer thread to finish.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        writer.join();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new RejectedExecutionException("Ingestion pipeline is closed");
+        }
+    }
+
+    private void awaitSpace() {
+        try {
+            notFull.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for ingestion buffer space", e);
+        }
+    }
+
+    private void dropOldest() {
+        matchIds[head] = null;
+        head = (head + 1) % capacity;
+        size--;
+        dropped++;
+        completed++;
+        processed.signalAll();
+    }
+
+    private void run() {
+        while (true) {
+            final int drained;
+            lock.lock();
+            try {
+                while (size == 0 && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (size == 0) {
+                    return;
+                }
+                drained = size;
+                for (int i = 0; i < drained; i++) {
+                    final var slot = (head + i) % capacity;
+                    drainedMatchIds[i] = matchIds[slot];
+                    drainedHomeTeamScores[i] = homeTeamScores[slot];
+                    drainedAwayTeamScores[i] = awayTeamScores[slot];
+                    matchIds[slot] = null;
+                }
+                head = (head + drained) % capacity;
+                size = 0;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                apply(drained);
+            } finally {
+                lock.lock();
+                try {
+                    completed += drained;
+                    processed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void apply(int drained) {
+        final var latest = new LinkedHashMap<String, ScoreUpdate>();
+        for (int i = 0; i < drained; i++) {
+            final var matchId = drainedMatchIds[i];
+            latest.put(matchId, scoreUpdate(matchId, drainedHomeTeamScores[i], drainedAwayTeamScores[i]));
+            drainedMatchIds[i] = null;
+        }
+        final BatchResult<ScoreUpdate> result;
+        try {
+            result = service.updateScores(latest.values());
+        } catch (RuntimeException e) {
+            for (final var update : latest.values()) {
+                report(new BatchResult.Failure<>(update, e));
+            }
+            return;
+        }
+        result.failed.forEach(this::report);
+    }
+
+    private void report(BatchResult.Failure<ScoreUpdate> failure) {
+        try {
+            failureHandler.accept(failure);
+        } catch (RuntimeException e) {
+            final var thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package org.ilzi.scorecard.util.collection;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable sorted set backed by a path-copying AVL tree. Every update returns a new set sharing all untouched
+ * nodes with the old one, so an update costs O(log n) and a reference to a set is a consistent snapshot that can be
+ * read without any synchronization. Nodes keep their subtree size, which makes positional access O(log n).
+ */
+public final class PersistentSortedSet<E> {
+
+    private final Comparator<? super E> comparator;
+    private final Node<E> root;
+
+    private PersistentSortedSet(Comparator<? super E> comparator, Node<E> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    public static <E> PersistentSortedSet<E> empty(Comparator<? super E> comparator) {
+        return new PersistentSortedSet<>(requireNonNull(comparator), null);
+    }
+
+    /**
+     * Builds a set from elements that are already in strictly ascending order in O(n), comparing only neighbours.
+     * The resulting tree is perfectly balanced.
+     */
+    public static <E> PersistentSortedSet<E> ofSorted(Comparator<? super E> comparator, List<? extends E> elements) {
+        for (int i = 1; i < elements.size(); i++) {
+            if (comparator.compare(elements.get(i - 1), elements.get(i)) >= 0) {
+                throw new IllegalArgumentException(
+                    "Elements are not in strictly ascending order at index %d".formatted(i));
+            }
+        }
+        return new PersistentSortedSet<>(requireNonNull(comparator), build(elements, 0, elements.size()));
+    }
+
+    /**
+     * Iterates over the elements of all sets in the order of the first set's comparator, merging them lazily: each
+     * step costs O(log k) for k sets, nothing is copied up front.
+     */
+    public static <E> Iterator<E> merge(List<PersistentSortedSet<E>> sets) {
+        return new MergingIterator<>(sets.get(0).comparator, sets);
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns a set containing the element, replacing an element that compares equal to it.
+     */
+    public PersistentSortedSet<E> with(E element) {
+        requireNonNull(element);
+        return new PersistentSortedSet<>(comparator, insert(root, element));
+    }
+
+    /**
+     * Returns a set without the element, or this set if there is no element comparing equal to it.
+     */
+    public PersistentSortedSet<E> without(E element) {
+        final var newRoot = delete(root, element);
+        return newRoot == root ? this : new PersistentSortedSet<>(comparator, newRoot);
+    }
+
+    public E get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index %d out of bounds for size %d".formatted(index, size()));
+        }
+        var node = root;
+        while (true) {
+            final var leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the position of the element in iteration order, or -1 if the set does not contain it.
+     */
+    public int indexOf(E element) {
+        var node = root;
+        var index = 0;
+        while (node != null) {
+            final var cmp = comparator.compare(element, node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                index += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return index + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of elements less than the given one, which does not need to be in the set.
+     */
+    public int countLessThan(E element) {
+        var node = root;
+        var count = 0;
+        while (node != null) {
+            if (comparator.compare(element, node.value) <= 0) {
+                node = node.left;
+            } else {
+                count += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Iterates in ascending order starting at the given position.
+     */
+    public Iterator<E> iterator(int fromIndex) {
+        return new NodeIterator<>(root, fromIndex);
+    }
+
+    /**
+     * Returns an unmodifiable list view. The view never changes since the set itself is immutable.
+     */
+    public List<E> asList() {
+        return new ListView();
+    }
+
+    private static <E> Node<E> build(List<? extends E> elements, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        final var middle = (from + to) >>> 1;
+        return new Node<>(requireNonNull(elements.get(middle)),
+            build(elements, from, middle),
+            build(elements, middle + 1, to));
+    }
+
+    private Node<E> insert(Node<E> node, E element) {
+        if (node == null) {
+            return new Node<>(element, null, null);
+        }
+        final var cmp = comparator.compare(element, node.value);
+        if (cmp < 0) {
+            return balance(node.value, insert(node.left, element), node.right);
+        } else if (cmp > 0) {
+            return balance(node.value, node.left, insert(node.right, element));
+        } else {
+            return new Node<>(element, node.left, node.right);
+        }
+    }
+
+    private Node<E> delete(Node<E> node, E element) {
+        if (node == null) {
+            return null;
+        }
+        final var cmp = comparator.compare(element, node.value);
+        if (cmp < 0) {
+            final var left = delete(node.left, element);
+            return left == node.left ? node : balance(node.value, left, node.right);
+        } else if (cmp > 0) {
+            final var right = delete(node.right, element);
+            return right == node.right ? node : balance(node.value, node.left, right);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else {
+            var successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            return balance(successor.value, node.left, deleteFirst(node.right));
+        }
+    }
+
+    private static <E> Node<E> deleteFirst(Node<E> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.value, deleteFirst(node.left), node.right);
+    }
+
+    private static <E> Node<E> balance(E value, Node<E> left, Node<E> right) {
+        final var diff = height(left) - height(right);
+        if (diff > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+            }
+            return new Node<>(left.right.value,
+                new Node<>(left.value, left.left, left.right.left),
+                new Node<>(value, left.right.right, right));
+        }
+        if (diff < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+            }
+            return new Node<>(right.left.value,
+                new Node<>(value, left, right.left.left),
+                new Node<>(right.value, right.left.right, right.right));
+        }
+        return new Node<>(value, left, right);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node<E> {
+
+        final E value;
+        final Node<E> left;
+        final Node<E> right;
+        final int size;
+        final int height;
+
+        Node(E value, Node<E> left, Node<E> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private static final class NodeIterator<E> implements Iterator<E> {
+
+        private final ArrayDeque<Node<E>> path = new ArrayDeque<>();
+
+        NodeIterator(Node<E> root, int fromIndex) {
+            var node = root;
+            while (node != null) {
+                final var leftSize = size(node.left);
+                if (fromIndex < leftSize) {
+                    path.push(node);
+                    node = node.left;
+                } else if (fromIndex == leftSize) {
+                    path.push(node);
+                    return;
+                } else {
+                    fromIndex -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            final var node = path.pop();
+            var next = node.right;
+            while (next != null) {
+                path.push(next);
+                next = next.left;
+            }
+            return node.value;
+        }
+    }
+
+    private static final class MergingIterator<E> implements Iterator<E> {
+
+        private final PriorityQueue<Head<E>> heads;
+
+        MergingIterator(Comparator<? super E> comparator, List<PersistentSortedSet<E>> sets) {
+            this.heads = new PriorityQueue<>(Math.max(sets.size(), 1), (a, b) -> comparator.compare(a.value, b.value));
+            for (final var set : sets) {
+                final var iterator = set.iterator(0);
+                if (iterator.hasNext()) {
+                    heads.add(new Head<>(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            final var head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            if (head.rest.hasNext()) {
+                heads.add(new Head<>(head.rest.next(), head.rest));
+            }
+            return head.value;
+        }
+
+        private static final class Head<E> {
+
+            final E value;
+            final Iterator<E> rest;
+
+            Head(E value, Iterator<E> rest) {
+                this.value = value;
+                this.rest = rest;
+            }
+        }
+    }
+
+    private final class ListView extends AbstractList<E> {
+
+        @Override
+        public E get(int index) {
+            return PersistentSortedSet.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return PersistentSortedSet.this.size();
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return PersistentSortedSet.this.iterator(0);
+        }
+    }
+}
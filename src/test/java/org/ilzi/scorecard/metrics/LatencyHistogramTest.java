@@ -0,0 +1,70 @@
+package org.ilzi.scorecard.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentile__is_at_most_an_eighth_above_recorded_value() {
+        // given
+        final var histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value);
+        }
+
+        // when
+        final var median = histogram.percentile(50.0);
+        final var p99 = histogram.percentile(99.0);
+
+        // then
+        assertThat(median).isBetween(500_000L, 562_500L);
+        assertThat(p99).isBetween(990_000L, 1_000_000L);
+        assertThat(histogram.percentile(100.0)).isEqualTo(1_000_000L);
+        assertThat(histogram.count()).isEqualTo(1_000_000L);
+        assertThat(histogram.max()).isEqualTo(1_000_000L);
+        assertThat(histogram.mean()).isEqualTo(500_000.5);
+    }
+
+    @Test
+    void percentile__is_exact_for_small_values() {
+        // given
+        final var histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(5);
+        histogram.record(7);
+
+        // then
+        assertThat(histogram.percentile(0.0)).isEqualTo(3L);
+        assertThat(histogram.percentile(50.0)).isEqualTo(5L);
+        assertThat(histogram.percentile(100.0)).isEqualTo(7L);
+    }
+
+    @Test
+    void percentile__is_zero_when_nothing_was_recorded() {
+        // then
+        assertThat(new LatencyHistogram().percentile(99.0)).isEqualTo(0L);
+        assertThat(new LatencyHistogram().mean()).isEqualTo(0.0);
+    }
+
+    @Test
+    void percentile__throws_exception_when_out_of_range() {
+        // then
+        assertThatThrownBy(() -> new LatencyHistogram().percentile(101.0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("percentile must be between 0 and 100, but is 101.0");
+    }
+
+    @Test
+    void bucketOf__maps_every_value_into_a_bucket_bounding_it() {
+        // then
+        for (long value = 0; value < 100_000; value += 7) {
+            final var bucket = LatencyHistogram.bucketOf(value);
+            assertThat(LatencyHistogram.upperBoundOf(bucket)).isGreaterThanOrEqualTo(value);
+            assertThat(bucket == 0 || LatencyHistogram.upperBoundOf(bucket - 1) < value).isTrue();
+        }
+        assertThat(LatencyHistogram.bucketOf(Long.MAX_VALUE)).isGreaterThan(LatencyHistogram.bucketOf(1L << 40));
+    }
+}
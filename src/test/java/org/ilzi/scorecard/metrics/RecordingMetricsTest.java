@@ -0,0 +1,37 @@
+package org.ilzi.scorecard.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecordingMetricsTest {
+
+    @Test
+    void registerMBean__exports_metrics_through_jmx() throws Exception {
+        // given
+        final var metrics = new RecordingMetrics();
+        metrics.lockWaited(100);
+        metrics.lockHeld(2_000);
+        metrics.snapshotPublished(5_000, 2, 42);
+        metrics.snapshotRead(true);
+        metrics.snapshotRead(false);
+
+        // when
+        final var objectName = metrics.registerMBean("test-" + System.nanoTime());
+
+        // then
+        final var server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertThat(server.getAttribute(objectName, "LockWaitCount")).isEqualTo(1L);
+            assertThat(server.getAttribute(objectName, "LockHoldMaxNanos")).isEqualTo(2_000L);
+            assertThat(server.getAttribute(objectName, "SnapshotPublishP99Nanos")).isEqualTo(5_000L);
+            assertThat(server.getAttribute(objectName, "SnapshotPublishRetries")).isEqualTo(2L);
+            assertThat(server.getAttribute(objectName, "CachedSnapshotReadRatio")).isEqualTo(0.5);
+            assertThat(server.getAttribute(objectName, "BoardSize")).isEqualTo(42);
+        } finally {
+            server.unregisterMBean(objectName);
+        }
+    }
+}
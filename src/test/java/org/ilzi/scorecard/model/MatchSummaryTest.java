@@ -9,9 +9,15 @@ import javax.validation.ValidationException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.ilzi.scorecard.util.Allocations.allocatedBytes;
 
 class MatchSummaryTest implements MatchSummaryTestData {
 
+    /**
+     * Object header, three references, two longs and two ints, without compressed oops.
+     */
+    private static final long MAX_MATCH_SUMMARY_BYTES = 64;
+
     @ParameterizedTest
     @NullSource
     @ValueSource(strings = {"", " "})
@@ -73,7 +79,116 @@ class MatchSummaryTest implements MatchSummaryTestData {
         var updatedMatchSummary = matchSummary.withNewScore(10, 2);
 
         // then
-        assertThat(updatedMatchSummary).isEqualTo(matchSummary);
+        assertThat(updatedMatchSummary).isSameAs(matchSummary);
+    }
+
+    @Test
+    void keeps_unchanged_fields_when_updating_score() {
+        // given
+        var matchSummary = aMatchSummary().build();
+
+        // when
+        var updatedMatchSummary = matchSummary.withNewScore(1, 0);
+
+        // then
+        assertThat(updatedMatchSummary.id).isSameAs(matchSummary.id);
+        assertThat(updatedMatchSummary.createdTimestamp).isEqualTo(matchSummary.createdTimestamp);
+        assertThat(updatedMatchSummary.homeTeam).isSameAs(matchSummary.homeTeam);
+        assertThat(updatedMatchSummary.awayTeam).isSameAs(matchSummary.awayTeam);
+    }
+
+    @Test
+    void assigns_increasing_start_sequences_to_built_match_summaries() {
+        // when
+        final var first = aMatchSummary().build();
+        final var second = aMatchSummary().build();
+
+        // then
+        assertThat(second.startSequence).isGreaterThan(first.startSequence);
+        assertThat(second.sortKey()).isGreaterThan(first.sortKey());
+    }
+
+    @Test
+    void packs_total_score_above_start_sequence_in_sort_key() {
+        // given
+        final var earlierWithMoreGoals = aMatchSummary().homeTeamScore(2).build();
+        final var laterWithFewerGoals = aMatchSummary().homeTeamScore(1).build();
+
+        // when
+        final var sortKey = earlierWithMoreGoals.sortKey();
+
+        // then
+        assertThat(sortKey >>> MatchSummary.START_SEQUENCE_BITS).isEqualTo(2L);
+        assertThat(sortKey & ((1L << MatchSummary.START_SEQUENCE_BITS) - 1))
+            .isEqualTo(earlierWithMoreGoals.startSequence);
+        assertThat(sortKey).isGreaterThan(laterWithFewerGoals.sortKey());
+    }
+
+    @Test
+    void keeps_start_sequence_when_updating_score() {
+        // given
+        final var matchSummary = aMatchSummary().build();
+
+        // when
+        final var result = matchSummary.withNewScore(1, 0);
+
+        // then
+        assertThat(result.startSequence).isEqualTo(matchSummary.startSequence);
+    }
+
+    @Test
+    void advances_start_sequences_past_explicitly_given_one() {
+        // given
+        final var restored = aMatchSummary().startSequence(aMatchSummary().build().startSequence + 1_000).build();
+
+        // when
+        final var result = aMatchSummary().build();
+
+        // then
+        assertThat(result.startSequence).isGreaterThan(restored.startSequence);
+    }
+
+    @Test
+    void fails_to_create_match_summary_with_start_sequence_out_of_range() {
+        // then
+        assertThatThrownBy(() -> aMatchSummary().startSequence(-1L).build())
+            .isInstanceOf(ValidationException.class)
+            .hasMessage("startSequence must be between 1 and 2^39, but is -1");
+    }
+
+    @Test
+    void allocates_at_most_one_summary_per_score_update() {
+        // given
+        final var updates = 100_000;
+        final var matchSummaries = new MatchSummary[updates];
+        matchSummaries[0] = aMatchSummary().build();
+
+        // when
+        final var allocated = allocatedBytes(() -> {
+            for (int i = 1; i < updates; i++) {
+                matchSummaries[i] = matchSummaries[i - 1].withNewScore(i, 0);
+            }
+        });
+
+        // then
+        assertThat(allocated / (updates - 1)).isLessThanOrEqualTo(MAX_MATCH_SUMMARY_BYTES);
+    }
+
+    @Test
+    void does_not_allocate_when_score_does_not_change() {
+        // given
+        final var matchSummary = aMatchSummary().homeTeamScore(2).awayTeamScore(1).build();
+        final var updates = 100_000;
+
+        // when
+        final var allocated = allocatedBytes(() -> {
+            for (int i = 0; i < updates; i++) {
+                matchSummary.withNewScore(2, 1);
+            }
+        });
+
+        // then
+        assertThat(allocated / updates).isEqualTo(0L);
     }
 
     @Test
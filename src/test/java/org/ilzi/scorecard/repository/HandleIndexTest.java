@@ -0,0 +1,95 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.model.MatchSummaryTestData;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.ilzi.scorecard.model.MatchHandle.matchHandle;
+
+class HandleIndexTest implements MatchSummaryTestData {
+
+    private final HandleIndex index = new HandleIndex(4);
+
+    @Test
+    void get__returns_match_put_for_handle() {
+        // given
+        final var matchSummary = aMatchSummary().build();
+        index.put(matchHandle(0, 1), matchSummary);
+
+        // then
+        assertThat(index.get(matchHandle(0, 1))).isSameAs(matchSummary);
+        assertThat(index.get(matchHandle(1, 0))).isNull();
+    }
+
+    @Test
+    void put__replaces_match_of_handle() {
+        // given
+        final var matchSummary = aMatchSummary().build();
+        index.put(matchHandle(0, 1), matchSummary);
+
+        // when
+        final var updated = matchSummary.withNewScore(1, 0);
+        index.put(matchHandle(0, 1), updated);
+
+        // then
+        assertThat(index.get(matchHandle(0, 1))).isSameAs(updated);
+    }
+
+    @Test
+    void remove__ignores_stale_id() {
+        // given
+        final var matchSummary = aMatchSummary().build();
+        index.put(matchHandle(0, 1), matchSummary);
+
+        // when
+        index.remove(matchHandle(0, 1), "Spain_Brazil");
+
+        // then
+        assertThat(index.get(matchHandle(0, 1))).isSameAs(matchSummary);
+    }
+
+    @Test
+    void put__reuses_handle_after_remove() {
+        // given
+        final var matchSummary = aMatchSummary().build();
+        index.put(matchHandle(0, 1), matchSummary);
+        index.remove(matchHandle(0, 1), matchSummary.id);
+
+        // when
+        index.put(matchHandle(0, 1), matchSummary);
+
+        // then
+        assertThat(index.get(matchHandle(0, 1))).isSameAs(matchSummary);
+    }
+
+    @Test
+    void get__finds_live_handles_across_growth_and_churn() {
+        // given
+        final var matchSummaries = new MatchSummary[1_000];
+        for (int i = 0; i < matchSummaries.length; i++) {
+            matchSummaries[i] = aMatchSummary().build();
+            index.put(matchHandle(i, i + 1), matchSummaries[i]);
+            if (i % 2 == 1) {
+                index.remove(matchHandle(i, i + 1), matchSummaries[i].id);
+            }
+        }
+
+        // then
+        for (int i = 0; i < matchSummaries.length; i++) {
+            assertThat(index.get(matchHandle(i, i + 1))).isSameAs(i % 2 == 0 ? matchSummaries[i] : null);
+        }
+    }
+
+    @Test
+    void clear__removes_all_handles() {
+        // given
+        index.put(matchHandle(0, 1), aMatchSummary().build());
+
+        // when
+        index.clear();
+
+        // then
+        assertThat(index.get(matchHandle(0, 1))).isNull();
+    }
+}
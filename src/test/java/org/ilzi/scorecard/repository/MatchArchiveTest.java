@@ -0,0 +1,312 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.ArchivedMatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.ilzi.scorecard.repository.MatchArchive.Builder.matchArchive;
+
+class MatchArchiveTest {
+
+    private final MutableClock clock = new MutableClock(1_000L);
+    private final MatchSummaryRepository repository = new MatchSummaryRepository();
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("scoreboard-archive");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (var files = Files.walk(directory)) {
+            for (final var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void onEvent__archives_ended_matches_with_final_score() throws Exception {
+        // given
+        final var archive = matchArchive().clock(clock).open(repository);
+        final var matchId = repository.create("Mexico", "Canada");
+        repository.updateScore(matchId, 0, 5);
+        final var finalScore = repository.get(matchId);
+        repository.create("Spain", "Brazil");
+
+        // when
+        clock.millis = 2_000L;
+        repository.remove(matchId);
+
+        // then
+        assertThat(archive.endedBetween(Long.MIN_VALUE, Long.MAX_VALUE))
+            .containsExactly(new ArchivedMatch(finalScore, 2_000L));
+        assertThat(archive.size()).isEqualTo(1L);
+        archive.close();
+    }
+
+    @Test
+    void endedBetween__returns_matches_ended_in_range_in_end_order() throws Exception {
+        // given
+        final var archive = matchArchive().clock(clock).open(repository);
+        endMatches(0, 10);
+
+        // when
+        final var ended = archive.endedBetween(1_003L, 1_006L);
+
+        // then
+        assertThat(ids(ended)).containsExactly("home3_away3", "home4_away4", "home5_away5");
+        archive.close();
+    }
+
+    @Test
+    void endedBetween__returns_only_matches_of_team() throws Exception {
+        // given
+        final var archive = matchArchive().clock(clock).open(repository);
+        repository.remove(repository.create("Mexico", "Canada"));
+        clock.millis++;
+        repository.remove(repository.create("Spain", "Brazil"));
+        clock.millis++;
+        repository.remove(repository.create("Brazil", "Mexico"));
+
+        // when
+        final var mexico = archive.matchesOf("Mexico");
+        final var brazil = archive.endedBetween("Brazil", 1_002L, Long.MAX_VALUE);
+
+        // then
+        assertThat(ids(mexico)).containsExactly("Mexico_Canada", "Brazil_Mexico");
+        assertThat(ids(brazil)).containsExactly("Brazil_Mexico");
+        assertThat(archive.matchesOf("Germany")).isEmpty();
+        archive.close();
+    }
+
+    @Test
+    void onEvent__drops_oldest_matches_beyond_capacity_without_segments() throws Exception {
+        // given
+        final var archive = matchArchive().maxMatches(3).clock(clock).open(repository);
+
+        // when
+        endMatches(0, 5);
+
+        // then
+        assertThat(archive.heapSize()).isEqualTo(3);
+        assertThat(ids(archive.endedBetween(Long.MIN_VALUE, Long.MAX_VALUE)))
+            .containsExactly("home2_away2", "home3_away3", "home4_away4");
+        assertThat(archive.matchesOf("home0")).isEmpty();
+        archive.close();
+    }
+
+    @Test
+    void endedBetween__drops_matches_older_than_max_age() throws Exception {
+        // given
+        final var archive = matchArchive().maxAge(Duration.ofMillis(100)).clock(clock).open(repository);
+        endMatches(0, 3);
+
+        // when
+        clock.millis = 1_150L;
+
+        // then
+        assertThat(archive.endedBetween(Long.MIN_VALUE, Long.MAX_VALUE)).isEmpty();
+        assertThat(archive.size()).isEqualTo(0L);
+        archive.close();
+    }
+
+    @Test
+    void endedBetween__reads_evicted_matches_from_segments() throws Exception {
+        // given
+        final var archive = matchArchive()
+            .maxMatches(10)
+            .segments(directory, 1_000, 10)
+            .clock(clock)
+            .open(repository);
+        endMatches(0, 1_000);
+
+        // when
+        archive.flush();
+
+        // then
+        assertThat(archive.heapSize()).isEqualTo(10);
+        assertThat(archive.size()).isEqualTo(1_000L);
+        assertThat(ids(archive.endedBetween(1_500L, 1_503L)))
+            .containsExactly("home500_away500", "home501_away501", "home502_away502");
+        assertThat(archive.endedBetween(1_985L, 1_995L)).hasSize(10);
+        assertThat(endedTimestamps(archive.matchesOf("home7"))).containsExactly(1_007L);
+        assertThat(endedTimestamps(archive.endedBetween(Long.MIN_VALUE, Long.MAX_VALUE))).hasSize(1_000).isSorted();
+        archive.close();
+    }
+
+    @Test
+    void flush__keeps_only_newest_segments() throws Exception {
+        // given
+        final var archive = matchArchive()
+            .maxMatches(0)
+            .segments(directory, 10, 2)
+            .clock(clock)
+            .open(repository);
+        endMatches(0, 45);
+
+        // when
+        archive.flush();
+
+        // then
+        assertThat(archive.size()).isEqualTo(15L);
+        assertThat(ids(archive.endedBetween(Long.MIN_VALUE, Long.MAX_VALUE)))
+            .startsWith("home30_away30")
+            .endsWith("home44_away44");
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(2L);
+        }
+        archive.close();
+    }
+
+    @Test
+    void open__recovers_matches_archived_before_close() throws Exception {
+        // given
+        final var archive = matchArchive().maxMatches(5).segments(directory, 7, 10).clock(clock).open(repository);
+        endMatches(0, 20);
+        final var expected = archive.endedBetween(Long.MIN_VALUE, Long.MAX_VALUE);
+        archive.close();
+
+        // when
+        final var reopened = matchArchive()
+            .segments(directory, 7, 10)
+            .clock(clock)
+            .open(new MatchSummaryRepository());
+
+        // then
+        assertThat(expected).hasSize(20);
+        assertThat(reopened.endedBetween(Long.MIN_VALUE, Long.MAX_VALUE)).containsExactlyElementsOf(expected);
+        assertThat(startSequences(reopened.endedBetween(Long.MIN_VALUE, Long.MAX_VALUE)))
+            .containsExactlyElementsOf(startSequences(expected));
+        assertThat(reopened.matchesOf("away13")).containsExactly(expected.get(13));
+        reopened.close();
+    }
+
+    @Test
+    void onEvent__does_not_wait_while_archive_is_locked() throws Exception {
+        // given
+        final var archive = matchArchive().clock(clock).open(repository);
+        final var archiving = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        clock.blockArchiver(archiving, release);
+        endMatches(0, 1);
+        assertThat(archiving.await(10, TimeUnit.SECONDS)).isTrue();
+        final var executor = Executors.newSingleThreadExecutor();
+
+        // when
+        final var ending = executor.submit(() -> endMatches(1, 2));
+
+        // then
+        try {
+            ending.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertThat(ids(archive.endedBetween(Long.MIN_VALUE, Long.MAX_VALUE)))
+            .containsExactly("home0_away0", "home1_away1");
+        archive.close();
+    }
+
+    @Test
+    void onEvent__ignores_live_matches() throws Exception {
+        // given
+        final var archive = matchArchive().clock(clock).open(repository);
+
+        // when
+        repository.updateScore(repository.create("Mexico", "Canada"), 1, 0);
+        repository.create("Spain", "Brazil");
+
+        // then
+        assertThat(archive.size()).isEqualTo(0L);
+        archive.close();
+    }
+
+    /**
+     * Ends matches {@code homeN_awayN} for N in [from, to), match N at 1000 + N millis.
+     */
+    private void endMatches(int from, int to) {
+        for (int i = from; i < to; i++) {
+            clock.millis = 1_000L + i;
+            repository.remove(repository.create("home" + i, "away" + i));
+        }
+    }
+
+    private static List<String> ids(List<ArchivedMatch> matches) {
+        return matches.stream().map(match -> match.matchSummary.id).toList();
+    }
+
+    private static List<Long> endedTimestamps(List<ArchivedMatch> matches) {
+        return matches.stream().map(match -> match.endedTimestamp).toList();
+    }
+
+    private static List<Long> startSequences(List<ArchivedMatch> matches) {
+        return matches.stream().map(match -> match.matchSummary.startSequence).toList();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private long millis;
+        private volatile CountDownLatch archiving;
+        private volatile CountDownLatch release;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        /**
+         * Makes the next read by an archive thread, which holds the archive lock then, wait for the release.
+         */
+        void blockArchiver(CountDownLatch archiving, CountDownLatch release) {
+            this.release = release;
+            this.archiving = archiving;
+        }
+
+        @Override
+        public long millis() {
+            final var archiving = this.archiving;
+            if (archiving != null && Thread.currentThread().getName().startsWith("match-archive")) {
+                this.archiving = null;
+                archiving.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.repository.MatchSummaryJournal.Fsync;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.ilzi.scorecard.model.Fixture.fixture;
+import static org.ilzi.scorecard.model.ScoreUpdate.scoreUpdate;
+
+class MatchSummaryJournalTest {
+
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("scoreboard", ".journal");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"EVERY_WRITE", "INTERVAL", "NEVER"})
+    void open__recovers_live_matches_written_before_close(String fsync) throws Exception {
+        // given
+        final var repository = new MatchSummaryRepository();
+        final var journal = MatchSummaryJournal.open(repository, file, Fsync.valueOf(fsync), Duration.ofMillis(5));
+        final var mexicoCanada = repository.create("Mexico", "Canada");
+        final var spainBrazil = repository.create("Spain", "Brazil");
+        repository.createAll(List.of(fixture("Germany", "France"), fixture("Uruguay", "Italy")));
+        repository.updateScore(mexicoCanada, 0, 5);
+        repository.updateScores(List.of(scoreUpdate(spainBrazil, 10, 2), scoreUpdate("Uruguay_Italy", 6, 6)));
+        repository.remove("Germany_France");
+        final var expected = repository.getAll();
+        journal.close();
+
+        // when
+        final var recovered = new MatchSummaryRepository();
+        MatchSummaryJournal.open(recovered, file, Fsync.valueOf(fsync), Duration.ofMillis(5)).close();
+
+        // then
+        assertThat(recovered.getAll()).containsExactlyElementsOf(expected);
+        assertThat(recovered.get(mexicoCanada).createdTimestamp)
+            .isEqualTo(repository.get(mexicoCanada).createdTimestamp);
+        assertThat(recovered.get(spainBrazil).startSequence).isEqualTo(repository.get(spainBrazil).startSequence);
+        assertThat(recovered.find("Germany_France")).isEmpty();
+    }
+
+    @Test
+    void flush__makes_changes_durable_without_closing() throws Exception {
+        // given
+        final var repository = new MatchSummaryRepository();
+        final var journal = MatchSummaryJournal.open(repository, file, Fsync.NEVER, null);
+        final var matchId = repository.create("Mexico", "Canada");
+        repository.updateScore(matchId, 1, 0);
+
+        // when
+        journal.flush();
+
+        // then
+        final var recovered = new MatchSummaryRepository();
+        MatchSummaryJournal.open(recovered, file, Fsync.NEVER, null).close();
+        assertThat(recovered.get(matchId).homeTeamScore).isEqualTo(1);
+        journal.close();
+    }
+
+    @Test
+    void flush__fails_once_journal_stopped_writing() throws Exception {
+        // given
+        final var repository = new MatchSummaryRepository();
+        final var journal = MatchSummaryJournal.open(repository, file, Fsync.NEVER, null);
+        journal.close();
+
+        // then
+        assertThatThrownBy(journal::flush)
+            .isInstanceOf(IOException.class)
+            .hasMessage("Journal stopped writing before the flush");
+    }
+
+    @Test
+    void open__cuts_off_torn_tail() throws Exception {
+        // given
+        final var repository = new MatchSummaryRepository();
+        final var journal = MatchSummaryJournal.open(repository, file, Fsync.EVERY_WRITE, null);
+        final var matchId = repository.create("Mexico", "Canada");
+        repository.updateScore(matchId, 2, 1);
+        journal.close();
+        final var validBytes = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // when
+        final var recovered = new MatchSummaryRepository();
+        final var reopened = MatchSummaryJournal.open(recovered, file, Fsync.EVERY_WRITE, null);
+
+        // then
+        assertThat(Files.size(file)).isEqualTo(validBytes);
+        assertThat(recovered.get(matchId).homeTeamScore).isEqualTo(2);
+
+        // and appending continues after the last intact record
+        recovered.updateScore(matchId, 3, 1);
+        reopened.close();
+        final var again = new MatchSummaryRepository();
+        MatchSummaryJournal.open(again, file, Fsync.EVERY_WRITE, null).close();
+        assertThat(again.get(matchId).homeTeamScore).isEqualTo(3);
+    }
+
+    @Test
+    void close__stops_journaling() throws Exception {
+        // given
+        final var repository = new MatchSummaryRepository();
+        MatchSummaryJournal.open(repository, file, Fsync.EVERY_WRITE, null).close();
+
+        // when
+        repository.create("Mexico", "Canada");
+
+        // then
+        assertThat(Files.size(file)).isEqualTo(0L);
+    }
+}
@@ -1,12 +1,33 @@
 package org.ilzi.scorecard.repository;
 
+import org.ilzi.scorecard.metrics.RecordingMetrics;
+import org.ilzi.scorecard.metrics.ScoreboardMetrics;
+import org.ilzi.scorecard.model.Fixture;
 import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
 import org.ilzi.scorecard.model.MatchSummaryTestData;
 import org.junit.jupiter.api.Test;
 
+import javax.validation.ValidationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.ilzi.scorecard.model.Fixture.fixture;
+import static org.ilzi.scorecard.model.MatchHandle.NO_HANDLE;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.NO_RANK;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.ENDED;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.SCORE_UPDATED;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.STARTED;
+import static org.ilzi.scorecard.model.ScoreUpdate.scoreUpdate;
 
 class MatchSummaryRepositoryTest implements MatchSummaryTestData {
 
@@ -90,6 +111,496 @@ class MatchSummaryRepositoryTest implements MatchSummaryTestData {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    void getAll__reorders_match_summaries_after_score_update() {
+        // given
+        final var createdDate = System.currentTimeMillis();
+        final var firstMatch = givenExists(aMatchSummary()
+            .homeTeamScore(2)
+            .awayTeamScore(1)
+            .createdDate(createdDate));
+        final var secondMatch = givenExists(aMatchSummary()
+            .homeTeamScore(1)
+            .awayTeamScore(1)
+            .createdDate(createdDate + 1L));
+        assertThat(repository.getAll()).containsExactly(firstMatch, secondMatch);
+
+        // when
+        repository.updateScore(secondMatch.id, 3, 1);
+
+        // then
+        assertThat(repository.getAll()).containsExactly(repository.get(secondMatch.id), firstMatch);
+    }
+
+    @Test
+    void getAll__keeps_matches_with_equal_score_and_created_date() {
+        // given
+        final var firstMatch = givenExists(aMatchSummary());
+        final var secondMatch = givenExists(aMatchSummary());
+
+        // when
+        final var result = repository.getAll();
+
+        // then
+        assertThat(result).containsExactlyInAnyOrder(firstMatch, secondMatch);
+    }
+
+    @Test
+    void getAll__ranks_later_started_match_first_when_score_and_created_date_are_equal() {
+        // given
+        final var createdDate = System.currentTimeMillis();
+        final var firstMatch = givenExists(aMatchSummary().id("first").createdDate(createdDate));
+        final var secondMatch = givenExists(aMatchSummary().id("second").createdDate(createdDate));
+
+        // when
+        final var result = repository.getAll();
+
+        // then
+        assertThat(result).containsExactly(secondMatch, firstMatch);
+    }
+
+    @Test
+    void getAll__does_not_return_removed_match_summary() {
+        // given
+        final var firstMatch = givenExists(aMatchSummary());
+        final var secondMatch = givenExists(aMatchSummary());
+        assertThat(repository.getAll()).hasSize(2);
+
+        // when
+        repository.remove(firstMatch.id);
+
+        // then
+        assertThat(repository.getAll()).containsExactly(secondMatch);
+    }
+
+    @Test
+    void getAll__stays_ordered_under_concurrent_updates_of_different_matches() throws Exception {
+        // given
+        final var matches = new ArrayList<MatchSummary>();
+        for (int i = 0; i < 16; i++) {
+            matches.add(givenExists(aMatchSummary().createdDate(i)));
+        }
+        final var tasks = new ArrayList<Callable<Void>>();
+        for (final var match : matches) {
+            tasks.add(() -> {
+                for (int score = 1; score <= 200; score++) {
+                    repository.updateScore(match.id, score, 0);
+                }
+                return null;
+            });
+        }
+
+        // when
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            for (final var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        final var result = repository.getAll();
+        assertThat(result).hasSize(16);
+        assertThat(result.stream().map(match -> match.homeTeamScore).distinct().toList()).containsExactly(200);
+        assertThat(result.get(0).createdTimestamp).isEqualTo(15L);
+        assertThat(result.get(15).createdTimestamp).isEqualTo(0L);
+    }
+
+    @Test
+    void getByTeam__returns_live_matches_of_team_in_board_order() {
+        // given
+        repository.create("Mexico", "Canada");
+        repository.create("Spain", "Mexico");
+        repository.create("Germany", "France");
+        repository.updateScore("Mexico_Canada", 2, 0);
+
+        // when
+        final var result = repository.getByTeam("Mexico");
+
+        // then
+        assertThat(result).containsExactly(repository.get("Mexico_Canada"), repository.get("Spain_Mexico"));
+        assertThat(result.get(0).homeTeamScore).isEqualTo(2);
+    }
+
+    @Test
+    void getByTeam__follows_ended_and_bulk_started_matches() {
+        // given
+        repository.createAll(List.of(fixture("Mexico", "Canada"), fixture("Spain", "Brazil")));
+        repository.create("Brazil", "Mexico");
+
+        // when
+        repository.remove("Mexico_Canada");
+        repository.removeAll(List.of("Brazil_Mexico"));
+
+        // then
+        assertThat(repository.getByTeam("Mexico")).isEmpty();
+        assertThat(repository.getByTeam("Canada")).isEmpty();
+        assertThat(repository.getByTeam("Brazil")).containsExactly(repository.get("Spain_Brazil"));
+    }
+
+    @Test
+    void registerView__ranks_matches_already_on_board() {
+        // given
+        repository.create("Mexico", "Canada");
+        repository.create("Spain", "Brazil");
+        repository.updateScore("Mexico_Canada", 3, 3);
+        repository.updateScore("Spain_Brazil", 2, 0);
+
+        // when
+        repository.registerView("goalDifference", RankingView.Key.GOAL_DIFFERENCE, matchSummary -> true);
+
+        // then
+        assertThat(repository.getView("goalDifference").matchSummaries())
+            .containsExactly(repository.get("Spain_Brazil"), repository.get("Mexico_Canada"));
+    }
+
+    @Test
+    void registerView__keeps_view_up_to_date_on_writes() {
+        // given
+        repository.create("Mexico", "Canada");
+        repository.create("Spain", "Brazil");
+        repository.create("Germany", "France");
+        repository.registerView("recent", RankingView.Key.MOST_RECENTLY_CHANGED, matchSummary -> true);
+        final var before = repository.getView("recent");
+
+        // when
+        repository.updateScore("Mexico_Canada", 1, 0);
+        repository.updateScores(List.of(scoreUpdate("Spain_Brazil", 1, 0), scoreUpdate("Spain_Brazil", 2, 0)));
+        repository.remove("Germany_France");
+
+        // then
+        final var after = repository.getView("recent");
+        assertThat(after.matchSummaries())
+            .containsExactly(repository.get("Spain_Brazil"), repository.get("Mexico_Canada"));
+        assertThat(after.version()).isGreaterThan(before.version());
+        assertThat(before.size()).isEqualTo(3);
+    }
+
+    @Test
+    void registerView__follows_matches_in_and_out_of_filter() {
+        // given
+        repository.registerView("scoring", RankingView.Key.of(matchSummary -> 0L),
+            matchSummary -> matchSummary.homeTeamScore + matchSummary.awayTeamScore > 0);
+        final var registered = repository.getView("scoring");
+        repository.create("Mexico", "Canada");
+        repository.create("Spain", "Brazil");
+        final var afterStarts = repository.getView("scoring");
+
+        // when
+        repository.updateScore("Spain_Brazil", 0, 1);
+
+        // then
+        final var view = repository.getView("scoring");
+        assertThat(afterStarts).isSameAs(registered);
+        assertThat(view.matchSummaries()).containsExactly(repository.get("Spain_Brazil"));
+        assertThat(view.page(1, 10)).isEmpty();
+    }
+
+    @Test
+    void registerView__ignores_writes_that_do_not_change_the_match() {
+        // given
+        repository.create("Mexico", "Canada");
+        repository.create("Spain", "Brazil");
+        repository.registerView("recent", RankingView.Key.MOST_RECENTLY_CHANGED, matchSummary -> true);
+        final var before = repository.getView("recent");
+
+        // when
+        repository.updateScore("Spain_Brazil", 0, 0);
+
+        // then
+        assertThat(repository.getView("recent")).isSameAs(before);
+        assertThat(before.matchSummaries())
+            .containsExactly(repository.get("Spain_Brazil"), repository.get("Mexico_Canada"));
+    }
+
+    @Test
+    void registerView__keeps_view_of_sharded_board_and_restored_board() {
+        // given
+        final var sharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 4);
+        sharded.registerView("goalDifference", RankingView.Key.GOAL_DIFFERENCE, matchSummary -> true);
+        for (int i = 0; i < 8; i++) {
+            sharded.create("Home" + i, "Away" + i);
+            sharded.updateScore("Home%d_Away%d".formatted(i, i), i, 0);
+        }
+
+        // when
+        final var restored = new MatchSummaryRepository(new HeapMatchStore(), 16, 4);
+        restored.registerView("goalDifference", RankingView.Key.GOAL_DIFFERENCE, matchSummary -> true);
+        restored.restore(sharded.getSnapshot().version(), sharded.getAll());
+
+        // then
+        assertThat(sharded.getView("goalDifference").matchSummaries()).containsExactlyElementsOf(sharded.getAll());
+        assertThat(restored.getView("goalDifference").page(0, 3)).containsExactlyElementsOf(sharded.getTop(3));
+    }
+
+    @Test
+    void registerView__throws_exception_when_view_with_such_name_already_exists() {
+        // given
+        repository.registerView("recent", RankingView.Key.MOST_RECENTLY_CHANGED, matchSummary -> true);
+
+        // then
+        assertThatThrownBy(() -> repository.registerView("recent", RankingView.Key.GOAL_DIFFERENCE, m -> true))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("View recent already exists");
+    }
+
+    @Test
+    void getView__throws_exception_when_view_was_removed() {
+        // given
+        repository.registerView("recent", RankingView.Key.MOST_RECENTLY_CHANGED, matchSummary -> true);
+
+        // when
+        repository.removeView("recent");
+
+        // then
+        assertThatThrownBy(() -> repository.getView("recent"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("View recent not found");
+    }
+
+    @Test
+    void getTop__returns_best_k_match_summaries() {
+        // given
+        final var firstMatch = givenExists(aMatchSummary().homeTeamScore(3));
+        final var secondMatch = givenExists(aMatchSummary().homeTeamScore(2));
+        givenExists(aMatchSummary().homeTeamScore(1));
+
+        // when
+        final var result = repository.getTop(2);
+
+        // then
+        assertThat(result).containsExactly(firstMatch, secondMatch);
+    }
+
+    @Test
+    void getTop__returns_whole_board_when_k_exceeds_its_size() {
+        // given
+        final var matchSummary = givenExists(aMatchSummary());
+
+        // when
+        final var result = repository.getTop(5);
+
+        // then
+        assertThat(result).containsExactly(matchSummary);
+    }
+
+    @Test
+    void getPage__returns_match_summaries_from_offset() {
+        // given
+        givenExists(aMatchSummary().homeTeamScore(4));
+        final var secondMatch = givenExists(aMatchSummary().homeTeamScore(3));
+        final var thirdMatch = givenExists(aMatchSummary().homeTeamScore(2));
+        givenExists(aMatchSummary().homeTeamScore(1));
+
+        // when
+        final var result = repository.getPage(1, 2);
+
+        // then
+        assertThat(result).containsExactly(secondMatch, thirdMatch);
+    }
+
+    @Test
+    void getPage__returns_empty_list_when_offset_is_past_the_end() {
+        // given
+        givenExists(aMatchSummary());
+
+        // when
+        final var result = repository.getPage(3, 2);
+
+        // then
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void getPage__throws_exception_when_offset_is_negative() {
+        // then
+        assertThatThrownBy(() -> repository.getPage(-1, 2))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("offset must be greater or equal to 0, but is -1");
+    }
+
+    @Test
+    void getPage__throws_exception_when_limit_is_negative() {
+        // then
+        assertThatThrownBy(() -> repository.getPage(0, -1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("limit must be greater or equal to 0, but is -1");
+    }
+
+    @Test
+    void getSnapshot__publishes_new_version_on_every_write() {
+        // given
+        final var initial = repository.getSnapshot();
+        final var matchSummary = givenExists(aMatchSummary());
+        final var afterAdd = repository.getSnapshot();
+
+        // when
+        repository.updateScore(matchSummary.id, 1, 0);
+        final var afterUpdate = repository.getSnapshot();
+        repository.remove(matchSummary.id);
+        final var afterRemove = repository.getSnapshot();
+
+        // then
+        assertThat(initial.version()).isEqualTo(0L);
+        assertThat(afterAdd.version()).isEqualTo(1L);
+        assertThat(afterUpdate.version()).isEqualTo(2L);
+        assertThat(afterRemove.version()).isEqualTo(3L);
+        assertThat(afterAdd.matchSummaries()).containsExactly(matchSummary);
+        assertThat(afterUpdate.matchSummaries()).containsExactly(matchSummary.withNewScore(1, 0));
+        assertThat(afterRemove.matchSummaries()).isEmpty();
+    }
+
+    @Test
+    void getSnapshot__does_not_publish_new_version_when_nothing_changed() {
+        // given
+        final var initial = repository.getSnapshot();
+
+        // when
+        repository.remove("nonexistentMatchId");
+
+        // then
+        assertThat(repository.getSnapshot()).isSameAs(initial);
+    }
+
+    @Test
+    void version__follows_snapshot_version_of_sharded_board() {
+        // given
+        final var sharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 4);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            sharded.create("home" + i, "away" + i);
+        }
+        sharded.updateScore("home3_away3", 1, 0);
+
+        // then
+        assertThat(sharded.version()).isEqualTo(11L);
+        assertThat(sharded.version()).isEqualTo(sharded.getSnapshot().version());
+    }
+
+    @Test
+    void replaceAll__never_moves_version_back() {
+        // given
+        final var sharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 4);
+        for (int i = 0; i < 5; i++) {
+            sharded.create("home" + i, "away" + i);
+        }
+        final var replacement = new MatchSummaryRepository();
+        replacement.create("Mexico", "Canada");
+
+        // when
+        final var version = sharded.replaceAll(replacement.version(), replacement.getAll());
+
+        // then
+        assertThat(version).isEqualTo(6L);
+        assertThat(sharded.version()).isEqualTo(6L);
+        assertThat(sharded.getSnapshot().version()).isEqualTo(6L);
+        assertThat(sharded.getAll()).containsExactlyElementsOf(replacement.getAll());
+    }
+
+    @Test
+    void restore__installs_given_version_when_it_is_ahead() {
+        // given
+        repository.remove(repository.create("Mexico", "Canada"));
+
+        // when
+        final var version = repository.restore(10L, List.of(aMatchSummary().build()));
+
+        // then
+        assertThat(version).isEqualTo(10L);
+        assertThat(repository.getSnapshot().version()).isEqualTo(10L);
+    }
+
+    @Test
+    void awaitVersionChange__returns_once_board_changes() throws Exception {
+        // given
+        final var executor = Executors.newSingleThreadExecutor();
+        final var initialVersion = repository.version();
+
+        // when
+        final var awaited = executor.submit(() -> repository.awaitVersionChange(initialVersion, 10, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        givenExists(aMatchSummary());
+
+        // then
+        assertThat(awaited.get(5, TimeUnit.SECONDS)).isEqualTo(initialVersion + 1);
+        executor.shutdown();
+    }
+
+    @Test
+    void awaitVersionChange__returns_unchanged_version_on_timeout() throws Exception {
+        // given
+        givenExists(aMatchSummary());
+
+        // when
+        final var version = repository.awaitVersionChange(1L, 20, TimeUnit.MILLISECONDS);
+
+        // then
+        assertThat(version).isEqualTo(1L);
+    }
+
+    @Test
+    void addListener__notifies_listener_about_changes_and_rank_movements() {
+        // given
+        final var events = new ArrayList<MatchSummaryEvent>();
+        final var leader = givenExists(aMatchSummary().homeTeamScore(1));
+        repository.addListener(events::add);
+
+        // when
+        final var matchSummary = givenExists(aMatchSummary());
+        repository.updateScore(matchSummary.id, 2, 0);
+        final var updated = repository.get(matchSummary.id);
+        repository.remove(matchSummary.id);
+
+        // then
+        assertThat(events).containsExactly(
+            new MatchSummaryEvent(STARTED, matchSummary, NO_RANK, 1, 2L),
+            new MatchSummaryEvent(SCORE_UPDATED, updated, 1, 0, 3L),
+            new MatchSummaryEvent(ENDED, updated, 0, NO_RANK, 4L));
+        assertThat(repository.getAll()).containsExactly(leader);
+    }
+
+    @Test
+    void addListener__leaves_events_unranked_while_no_listener_needs_ranks() {
+        // given
+        final var unranked = new UnrankedListener();
+        final var ranked = new ArrayList<MatchSummaryEvent>();
+        final MatchSummaryListener rankedListener = ranked::add;
+        repository.addListener(unranked);
+        final var matchSummary = givenExists(aMatchSummary());
+
+        // when
+        repository.addListener(rankedListener);
+        repository.updateScore(matchSummary.id, 1, 0);
+        final var updated = repository.get(matchSummary.id);
+        repository.removeListener(rankedListener);
+        repository.remove(matchSummary.id);
+
+        // then
+        assertThat(unranked.events).containsExactly(
+            new MatchSummaryEvent(STARTED, matchSummary, NO_RANK, NO_RANK, 1L),
+            new MatchSummaryEvent(SCORE_UPDATED, updated, 0, 0, 2L),
+            new MatchSummaryEvent(ENDED, updated, NO_RANK, NO_RANK, 3L));
+        assertThat(ranked).containsExactly(new MatchSummaryEvent(SCORE_UPDATED, updated, 0, 0, 2L));
+    }
+
+    @Test
+    void removeListener__stops_notifying_listener() {
+        // given
+        final var events = new ArrayList<MatchSummaryEvent>();
+        final MatchSummaryListener listener = events::add;
+        repository.addListener(listener);
+
+        // when
+        repository.removeListener(listener);
+        givenExists(aMatchSummary());
+
+        // then
+        assertThat(events).isEmpty();
+    }
+
     @Test
     void create__creates_match_with_default_score_of() {
         // when
@@ -134,9 +645,25 @@ class MatchSummaryRepositoryTest implements MatchSummaryTestData {
     }
 
     @Test
-    void updateScore__throws_exception_when_match_summary_does_not_exist() {
-        // then
-        assertThatThrownBy(() -> repository.updateScore("unknown_id", 10, 5))
+    void updateScore__does_not_publish_when_score_is_unchanged() {
+        // given
+        final var matchSummary = givenExists(aMatchSummary().homeTeamScore(1));
+        final var snapshot = repository.getSnapshot();
+        final var events = new ArrayList<MatchSummaryEvent>();
+        repository.addListener(events::add);
+
+        // when
+        repository.updateScore(matchSummary.id, 1, 0);
+
+        // then
+        assertThat(repository.getSnapshot()).isSameAs(snapshot);
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void updateScore__throws_exception_when_match_summary_does_not_exist() {
+        // then
+        assertThatThrownBy(() -> repository.updateScore("unknown_id", 10, 5))
             .isInstanceOf(IllegalStateException.class)
             .hasMessage("Match with id unknown_id not found");
     }
@@ -160,9 +687,633 @@ class MatchSummaryRepositoryTest implements MatchSummaryTestData {
             .doesNotThrowAnyException();
     }
 
+    @Test
+    void createAll__creates_all_matches_in_one_snapshot_version() {
+        // given
+        final var version = repository.getSnapshot().version();
+
+        // when
+        final var result = repository.createAll(List.of(fixture("A", "B"), fixture("C", "D")));
+
+        // then
+        assertThat(result.isSuccessful()).isTrue();
+        assertThat(result.succeeded).containsExactly(fixture("A", "B"), fixture("C", "D"));
+        assertThat(repository.find("A_B")).isPresent();
+        assertThat(repository.find("C_D")).isPresent();
+        assertThat(repository.getSnapshot().version()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void createAll__reports_fixtures_that_cannot_be_created() {
+        // given
+        final var existing = givenExists(aMatchSummary());
+
+        // when
+        final var result = repository.createAll(List.of(
+            fixture(existing.homeTeam, existing.awayTeam),
+            fixture("A", " "),
+            fixture("A", "B")));
+
+        // then
+        assertThat(result.succeeded).containsExactly(fixture("A", "B"));
+        assertThat(result.failed).hasSize(2);
+        assertThat(result.failed.get(0).item).isEqualTo(fixture(existing.homeTeam, existing.awayTeam));
+        assertThat(result.failed.get(0).error)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Match with id %s already exists".formatted(existing.id));
+        assertThat(result.failed.get(1).error).isInstanceOf(ValidationException.class);
+        assertThat(repository.getAll()).hasSize(2);
+    }
+
+    @Test
+    void createAll__reports_duplicates_within_the_batch() {
+        // when
+        final var result = repository.createAll(List.of(fixture("A", "B"), fixture("C", "D"), fixture("A", "B")));
+
+        // then
+        assertThat(result.succeeded).containsExactly(fixture("A", "B"), fixture("C", "D"));
+        assertThat(result.failed).hasSize(1);
+        assertThat(result.failed.get(0).error).hasMessage("Match with id A_B already exists");
+        assertThat(repository.getAll()).hasSize(2);
+    }
+
+    @Test
+    void createAll__validates_large_batches_in_parallel() {
+        // given
+        final var fixtures = new ArrayList<Fixture>();
+        for (int i = 0; i < 1_000; i++) {
+            fixtures.add(fixture("home" + i, i == 500 ? "" : "away" + i));
+        }
+        final var version = repository.getSnapshot().version();
+
+        // when
+        final var result = repository.createAll(fixtures);
+
+        // then
+        assertThat(result.succeeded).hasSize(999);
+        assertThat(result.failed).hasSize(1);
+        assertThat(result.failed.get(0).item).isEqualTo(fixture("home500", ""));
+        assertThat(repository.getAll()).hasSize(999);
+        assertThat(repository.getSnapshot().version()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void createAllOrNothing__creates_nothing_when_a_fixture_is_invalid() {
+        // given
+        final var version = repository.getSnapshot().version();
+
+        // when
+        final var result = repository.createAllOrNothing(List.of(fixture("A", "B"), fixture("C", " ")));
+
+        // then
+        assertThat(result.succeeded).isEmpty();
+        assertThat(result.failed).hasSize(1);
+        assertThat(result.failed.get(0).error).isInstanceOf(ValidationException.class);
+        assertThat(repository.getAll()).isEmpty();
+        assertThat(repository.getSnapshot().version()).isEqualTo(version);
+    }
+
+    @Test
+    void createAllOrNothing__creates_nothing_when_a_match_exists() {
+        // given
+        final var existing = givenExists(aMatchSummary());
+
+        // when
+        final var result = repository.createAllOrNothing(
+            List.of(fixture("A", "B"), fixture(existing.homeTeam, existing.awayTeam)));
+
+        // then
+        assertThat(result.succeeded).isEmpty();
+        assertThat(result.failed).hasSize(1);
+        assertThat(result.failed.get(0).error)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Match with id %s already exists".formatted(existing.id));
+        assertThat(repository.getAll()).containsExactly(existing);
+    }
+
+    @Test
+    void createAllOrNothing__creates_all_valid_fixtures() {
+        // when
+        final var result = repository.createAllOrNothing(List.of(fixture("A", "B"), fixture("C", "D")));
+
+        // then
+        assertThat(result.isSuccessful()).isTrue();
+        assertThat(result.succeeded).containsExactly(fixture("A", "B"), fixture("C", "D"));
+        assertThat(repository.getAll()).hasSize(2);
+    }
+
+    @Test
+    void updateScores__applies_all_updates_in_one_snapshot_version() {
+        // given
+        final var firstMatch = givenExists(aMatchSummary());
+        final var secondMatch = givenExists(aMatchSummary());
+        final var version = repository.getSnapshot().version();
+
+        // when
+        final var result = repository.updateScores(List.of(
+            scoreUpdate(firstMatch.id, 1, 0),
+            scoreUpdate(secondMatch.id, 0, 1),
+            scoreUpdate(firstMatch.id, 2, 0)));
+
+        // then
+        assertThat(result.isSuccessful()).isTrue();
+        assertThat(repository.get(firstMatch.id).homeTeamScore).isEqualTo(2);
+        assertThat(repository.get(secondMatch.id).awayTeamScore).isEqualTo(1);
+        assertThat(repository.getAll()).containsExactly(repository.get(firstMatch.id), repository.get(secondMatch.id));
+        assertThat(repository.getSnapshot().version()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void updateScores__reports_updates_that_cannot_be_applied() {
+        // given
+        final var matchSummary = givenExists(aMatchSummary().homeTeamScore(3));
+
+        // when
+        final var result = repository.updateScores(List.of(
+            scoreUpdate("unknown_id", 1, 0),
+            scoreUpdate(matchSummary.id, 1, 0),
+            scoreUpdate(matchSummary.id, 4, 0)));
+
+        // then
+        assertThat(result.succeeded).containsExactly(scoreUpdate(matchSummary.id, 4, 0));
+        assertThat(result.failed).hasSize(2);
+        assertThat(result.failed.get(0).error)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Match with id unknown_id not found");
+        assertThat(result.failed.get(1).error)
+            .isInstanceOf(ValidationException.class)
+            .hasMessage("newHomeTeamScore must be greater or equal to 3, but is 1");
+        assertThat(repository.get(matchSummary.id).homeTeamScore).isEqualTo(4);
+    }
+
+    @Test
+    void updateScores__skips_updates_that_leave_score_unchanged() {
+        // given
+        final var firstMatch = givenExists(aMatchSummary().homeTeamScore(1));
+        final var secondMatch = givenExists(aMatchSummary());
+        final var snapshot = repository.getSnapshot();
+        final var events = new ArrayList<MatchSummaryEvent>();
+        repository.addListener(events::add);
+
+        // when
+        final var unchanged = repository.updateScores(List.of(scoreUpdate(firstMatch.id, 1, 0)));
+        final var changed = repository.updateScores(List.of(
+            scoreUpdate(firstMatch.id, 1, 0),
+            scoreUpdate(secondMatch.id, 0, 1)));
+
+        // then
+        assertThat(unchanged.isSuccessful()).isTrue();
+        assertThat(changed.succeeded).hasSize(2);
+        assertThat(repository.getSnapshot().version()).isEqualTo(snapshot.version() + 1);
+        assertThat(events.stream().map(event -> event.matchSummary.id).toList()).containsExactly(secondMatch.id);
+    }
+
+    @Test
+    void updateScores__notifies_listener_about_every_update() {
+        // given
+        final var matchSummary = givenExists(aMatchSummary());
+        final var events = new ArrayList<MatchSummaryEvent>();
+        repository.addListener(events::add);
+
+        // when
+        repository.updateScores(List.of(scoreUpdate(matchSummary.id, 1, 0), scoreUpdate(matchSummary.id, 2, 0)));
+
+        // then
+        assertThat(events).containsExactly(
+            new MatchSummaryEvent(SCORE_UPDATED, matchSummary.withNewScore(1, 0), 0, 0, 2L),
+            new MatchSummaryEvent(SCORE_UPDATED, matchSummary.withNewScore(2, 0), 0, 0, 2L));
+    }
+
+    @Test
+    void removeAll__removes_all_matches_in_one_snapshot_version() {
+        // given
+        final var firstMatch = givenExists(aMatchSummary());
+        final var secondMatch = givenExists(aMatchSummary());
+        final var thirdMatch = givenExists(aMatchSummary());
+        final var version = repository.getSnapshot().version();
+
+        // when
+        final var result = repository.removeAll(List.of(firstMatch.id, secondMatch.id, "nonexistentMatchId"));
+
+        // then
+        assertThat(result.isSuccessful()).isTrue();
+        assertThat(repository.getAll()).containsExactly(thirdMatch);
+        assertThat(repository.getSnapshot().version()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void handleOf__returns_same_handle_for_same_teams() {
+        // given
+        repository.create("Mexico", "Canada");
+
+        // when
+        final var handle = repository.handleOf("Mexico", "Canada");
+
+        // then
+        assertThat(handle).isNotEqualTo(NO_HANDLE);
+        assertThat(repository.handleOf("Mexico", "Canada")).isEqualTo(handle);
+        assertThat(repository.handleOf("Canada", "Mexico")).isNotEqualTo(handle);
+    }
+
+    @Test
+    void handleOf__returns_no_handle_for_teams_that_never_played() {
+        // given
+        repository.create("Mexico", "Canada");
+
+        // then
+        assertThat(repository.handleOf("Mexico", "Spain")).isEqualTo(NO_HANDLE);
+        assertThat(repository.handleOf("Spain", "Brazil")).isEqualTo(NO_HANDLE);
+        assertThat(repository.find(NO_HANDLE)).isEmpty();
+    }
+
+    @Test
+    void find__finds_match_by_handle_after_same_teams_meet_again() {
+        // given
+        repository.create("Mexico", "Canada");
+        final var handle = repository.handleOf("Mexico", "Canada");
+        repository.remove(handle);
+
+        // when
+        final var matchId = repository.create("Mexico", "Canada");
+
+        // then
+        assertThat(repository.handleOf("Mexico", "Canada")).isEqualTo(handle);
+        assertThat(repository.get(handle)).isSameAs(repository.get(matchId));
+    }
+
+    @Test
+    void find__finds_match_summary_by_handle() {
+        // given
+        final var matchSummary = givenExists(aMatchSummary());
+
+        // when
+        final var result = repository.find(repository.handleOf(matchSummary.homeTeam, matchSummary.awayTeam));
+
+        // then
+        assertThat(result).hasValue(matchSummary);
+    }
+
+    @Test
+    void get__throws_exception_when_match_with_handle_not_found() {
+        // given
+        final var handle = repository.handleOf("Mexico", "Canada");
+
+        // then
+        assertThatThrownBy(() -> repository.get(handle))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Match with handle %d not found".formatted(handle));
+    }
+
+    @Test
+    void updateScore__updates_match_by_handle() {
+        // given
+        final var matchId = repository.create("Mexico", "Canada");
+        final var handle = repository.handleOf("Mexico", "Canada");
+
+        // when
+        repository.updateScore(handle, 0, 5);
+
+        // then
+        assertThat(repository.get(matchId).awayTeamScore).isEqualTo(5);
+        assertThat(repository.get(handle)).isSameAs(repository.get(matchId));
+    }
+
+    @Test
+    void updateScore__applies_concurrent_updates_by_handle() throws Exception {
+        // given
+        final var tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 16; i++) {
+            repository.create("Home" + i, "Away" + i);
+            final var handle = repository.handleOf("Home" + i, "Away" + i);
+            tasks.add(() -> {
+                for (int score = 1; score <= 200; score++) {
+                    repository.updateScore(handle, score, 0);
+                }
+                return null;
+            });
+        }
+
+        // when
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            for (final var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        assertThat(repository.getAll().stream().map(match -> match.homeTeamScore).distinct().toList())
+            .containsExactly(200);
+        assertThat(repository.get(repository.handleOf("Home3", "Away3")).homeTeamScore).isEqualTo(200);
+    }
+
+    @Test
+    void get__returns_current_score_by_handle_after_updates_by_id() {
+        // given
+        final var matchId = repository.create("Mexico", "Canada");
+        final var handle = repository.handleOf("Mexico", "Canada");
+
+        // when
+        repository.updateScore(matchId, 1, 0);
+        repository.updateScores(List.of(scoreUpdate(matchId, 2, 0)));
+
+        // then
+        assertThat(repository.get(handle).homeTeamScore).isEqualTo(2);
+        assertThat(repository.get(handle)).isSameAs(repository.get(matchId));
+    }
+
+    @Test
+    void updateScore__throws_exception_when_match_with_handle_not_found() {
+        // given
+        final var handle = repository.handleOf("Mexico", "Canada");
+
+        // then
+        assertThatThrownBy(() -> repository.updateScore(handle, 1, 0))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Match with handle %d not found".formatted(handle));
+    }
+
+    @Test
+    void remove__removes_match_by_handle_and_releases_the_handle() {
+        // given
+        final var matchId = repository.create("Mexico", "Canada");
+        final var handle = repository.handleOf("Mexico", "Canada");
+
+        // when
+        repository.remove(handle);
+
+        // then
+        assertThat(repository.find(matchId)).isEmpty();
+        assertThat(repository.find(handle)).isEmpty();
+    }
+
+    @Test
+    void removeAll__releases_handles_of_matches_created_in_batch() {
+        // given
+        repository.createAll(List.of(fixture("Mexico", "Canada"), fixture("Spain", "Brazil")));
+        final var handle = repository.handleOf("Spain", "Brazil");
+        assertThat(repository.find(handle)).isPresent();
+
+        // when
+        repository.removeAll(List.of("Mexico_Canada", "Spain_Brazil"));
+
+        // then
+        assertThat(repository.find(handle)).isEmpty();
+    }
+
+    @Test
+    void getAll__merges_shards_in_board_order() {
+        // given
+        final var sharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 4);
+        final var unsharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 1);
+        for (int i = 0; i < 200; i++) {
+            final var matchSummary = aMatchSummary().createdDate(i % 13).homeTeamScore(i % 7).awayTeamScore(i % 3)
+                .build();
+            sharded.add(matchSummary);
+            unsharded.add(matchSummary);
+        }
+
+        // when
+        final var result = sharded.getAll();
+
+        // then
+        assertThat(result).containsExactlyElementsOf(unsharded.getAll());
+        assertThat(result.get(57)).isEqualTo(unsharded.getAll().get(57));
+        assertThat(sharded.getTop(10)).containsExactlyElementsOf(unsharded.getTop(10));
+        assertThat(sharded.getPage(95, 10)).containsExactlyElementsOf(unsharded.getPage(95, 10));
+        assertThat(sharded.getSnapshot().rankOf(result.get(123))).isEqualTo(123);
+        assertThat(sharded.getSnapshot().version()).isEqualTo(200L);
+    }
+
+    @Test
+    void listeners__receive_board_ranks_from_sharded_repository() {
+        // given
+        final var sharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 4);
+        final var matches = new ArrayList<MatchSummary>();
+        for (int i = 0; i < 20; i++) {
+            final var matchSummary = aMatchSummary().createdDate(i).build();
+            sharded.add(matchSummary);
+            matches.add(matchSummary);
+        }
+        final var events = new ArrayList<MatchSummaryEvent>();
+        sharded.addListener(events::add);
+        final var oldest = matches.get(0);
+
+        // when
+        sharded.updateScore(oldest.id, 1, 0);
+
+        // then
+        assertThat(events).containsExactly(
+            new MatchSummaryEvent(SCORE_UPDATED, oldest.withNewScore(1, 0), 19, 0, 21L));
+    }
+
+    @Test
+    void batches__spanning_shards_are_applied_to_every_shard() {
+        // given
+        final var sharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 4);
+        final var fixtures = new ArrayList<Fixture>();
+        for (int i = 0; i < 50; i++) {
+            fixtures.add(fixture("home" + i, "away" + i));
+        }
+        sharded.createAll(fixtures);
+
+        // when
+        sharded.updateScores(List.of(scoreUpdate("home7_away7", 3, 0), scoreUpdate("home9_away9", 2, 0)));
+        sharded.removeAll(List.of("home1_away1", "home2_away2"));
+
+        // then
+        assertThat(sharded.getAll()).hasSize(48);
+        assertThat(sharded.getTop(2).stream().map(m -> m.id).toList()).containsExactly("home7_away7", "home9_away9");
+    }
+
+    @Test
+    void getAll__stays_ordered_under_concurrent_updates_of_sharded_repository() throws Exception {
+        // given
+        final var sharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 8);
+        final var matches = new ArrayList<MatchSummary>();
+        for (int i = 0; i < 16; i++) {
+            final var matchSummary = aMatchSummary().createdDate(i).build();
+            sharded.add(matchSummary);
+            matches.add(matchSummary);
+        }
+        final var tasks = new ArrayList<Callable<Void>>();
+        for (final var match : matches) {
+            tasks.add(() -> {
+                for (int score = 1; score <= 200; score++) {
+                    sharded.updateScore(match.id, score, 0);
+                }
+                return null;
+            });
+        }
+
+        // when
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            for (final var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        final var result = sharded.getAll();
+        assertThat(result.stream().map(match -> match.homeTeamScore).distinct().toList()).containsExactly(200);
+        assertThat(result.get(0).createdTimestamp).isEqualTo(15L);
+        assertThat(result.get(15).createdTimestamp).isEqualTo(0L);
+        assertThat(sharded.getSnapshot().version()).isEqualTo(16L + 16 * 200);
+    }
+
+    @Test
+    void getSnapshot__reuses_merged_board_until_a_shard_changes() {
+        // given
+        final var metrics = new RecordingMetrics();
+        final var sharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 4, metrics);
+        sharded.create("Mexico", "Canada");
+        sharded.create("Spain", "Brazil");
+
+        // when
+        final var first = sharded.getSnapshot();
+        final var second = sharded.getSnapshot();
+        sharded.updateScore("Mexico_Canada", 1, 0);
+        final var third = sharded.getSnapshot();
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(third).isNotSameAs(first);
+        assertThat(metrics.snapshotReads()).isEqualTo(3L);
+        assertThat(metrics.cachedSnapshotReads()).isEqualTo(1L);
+    }
+
+    @Test
+    void getSnapshot__of_sharded_board_holds_same_matches_for_same_version() throws Exception {
+        // given
+        final var sharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 8);
+        final var matchIds = new ArrayList<String>();
+        for (int i = 0; i < 16; i++) {
+            matchIds.add(sharded.create("home" + i, "away" + i));
+        }
+        final var tasks = new ArrayList<Callable<Void>>();
+        for (final var matchId : matchIds) {
+            tasks.add(() -> {
+                for (int score = 1; score <= 500; score++) {
+                    sharded.updateScore(matchId, score, 0);
+                }
+                return null;
+            });
+        }
+        final var boardsByVersion = new HashMap<Long, List<String>>();
+        final var conflictingVersions = new ArrayList<Long>();
+
+        // when
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            final var futures = tasks.stream().map(executor::submit).toList();
+            while (!futures.stream().allMatch(Future::isDone)) {
+                final var snapshot = sharded.getSnapshot();
+                final var board = snapshot.matchSummaries().stream()
+                    .map(match -> match.id + ":" + match.homeTeamScore)
+                    .toList();
+                if (!boardsByVersion.computeIfAbsent(snapshot.version(), version -> board).equals(board)) {
+                    conflictingVersions.add(snapshot.version());
+                }
+            }
+            for (final var future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        assertThat(conflictingVersions).isEmpty();
+        assertThat(sharded.getSnapshot().version()).isEqualTo(sharded.version());
+    }
+
+    @Test
+    void getSnapshot__of_sharded_board_does_not_show_write_before_it_is_counted_in_version() {
+        // given
+        final var readers = new AtomicReference<MatchSummaryRepository>();
+        final var snapshotsDuringPublish = new ArrayList<MatchSummarySnapshot>();
+        final var versionsDuringPublish = new ArrayList<Long>();
+        final var metrics = new ScoreboardMetrics() {
+            @Override
+            public void snapshotPublished(long nanos, int retries, int boardSize) {
+                final var reader = readers.get();
+                if (reader != null) {
+                    snapshotsDuringPublish.add(reader.getSnapshot());
+                    versionsDuringPublish.add(reader.version());
+                }
+            }
+        };
+        final var sharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 4, metrics);
+        sharded.create("Mexico", "Canada");
+        sharded.create("Spain", "Brazil");
+        final var before = sharded.getSnapshot();
+        readers.set(sharded);
+
+        // when
+        sharded.updateScore("Mexico_Canada", 1, 0);
+
+        // then
+        assertThat(snapshotsDuringPublish).containsExactly(before);
+        assertThat(versionsDuringPublish).containsExactly(before.version());
+        assertThat(sharded.getSnapshot().version()).isEqualTo(before.version() + 1);
+    }
+
+    @Test
+    void matchSummaries__of_merged_snapshot_returns_same_list() {
+        // given
+        final var sharded = new MatchSummaryRepository(new HeapMatchStore(), 16, 4);
+        sharded.create("Mexico", "Canada");
+        sharded.create("Spain", "Brazil");
+        final var snapshot = sharded.getSnapshot();
+
+        // then
+        assertThat(snapshot.matchSummaries()).isSameAs(snapshot.matchSummaries());
+    }
+
+    @Test
+    void metrics__record_locks_and_snapshot_publications() {
+        // given
+        final var metrics = new RecordingMetrics();
+        final var measured = new MatchSummaryRepository(new HeapMatchStore(), 16, 1, metrics);
+
+        // when
+        final var matchId = measured.create("Mexico", "Canada");
+        measured.updateScore(matchId, 1, 0);
+        measured.createAll(List.of(fixture("Spain", "Brazil"), fixture("Germany", "France")));
+        measured.getAll();
+
+        // then
+        assertThat(metrics.lockWait.count()).isEqualTo(3L);
+        assertThat(metrics.lockHold.count()).isEqualTo(3L);
+        assertThat(metrics.snapshotPublish.count()).isEqualTo(3L);
+        assertThat(metrics.snapshotPublishRetries()).isEqualTo(0L);
+        assertThat(metrics.boardSize()).isEqualTo(3);
+        assertThat(metrics.snapshotReads()).isEqualTo(1L);
+    }
+
     private MatchSummary givenExists(MatchSummary.Builder builder) {
         final var matchSummary = builder.build();
         repository.add(matchSummary);
         return matchSummary;
     }
-}
\ No newline at end of file
+
+    private static final class UnrankedListener implements MatchSummaryListener {
+
+        final List<MatchSummaryEvent> events = new ArrayList<>();
+
+        @Override
+        public void onEvent(MatchSummaryEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public boolean needsRanks() {
+            return false;
+        }
+    }
+}
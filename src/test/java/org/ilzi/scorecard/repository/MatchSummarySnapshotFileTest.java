@@ -0,0 +1,105 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummaryTestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MatchSummarySnapshotFileTest implements MatchSummaryTestData {
+
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("scoreboard", ".snapshot");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void restore__rebuilds_board_written_to_file() throws IOException {
+        // given
+        final var repository = new MatchSummaryRepository();
+        final var mexicoCanada = repository.create("Mexico", "Canada");
+        final var spainBrazil = repository.create("Spain", "Brazil");
+        repository.create("Spain", "Mexico");
+        repository.add(aMatchSummary().id("custom-id").homeTeamScore(3).build());
+        repository.updateScore(mexicoCanada, 0, 5);
+        repository.updateScore(spainBrazil, 10, 2);
+        MatchSummarySnapshotFile.write(repository.getSnapshot(), file);
+
+        // when
+        final var restored = new MatchSummaryRepository();
+        final var version = MatchSummarySnapshotFile.restore(file, restored);
+
+        // then
+        assertThat(version).isEqualTo(repository.getSnapshot().version());
+        assertThat(restored.getSnapshot().version()).isEqualTo(version);
+        assertThat(restored.getAll()).containsExactlyElementsOf(repository.getAll());
+        assertThat(restored.get("custom-id").homeTeamScore).isEqualTo(3);
+        assertThat(restored.get("custom-id").startSequence).isEqualTo(repository.get("custom-id").startSequence);
+        assertThat(restored.get(restored.handleOf("Mexico", "Canada")).awayTeamScore).isEqualTo(5);
+    }
+
+    @Test
+    void restore__keeps_restored_board_writable() throws IOException {
+        // given
+        final var repository = new MatchSummaryRepository();
+        for (int i = 0; i < 1000; i++) {
+            repository.updateScore(repository.create("home" + i, "away" + i), i % 7, i % 3);
+        }
+        MatchSummarySnapshotFile.write(repository.getSnapshot(), file);
+        final var restored = new MatchSummaryRepository();
+        MatchSummarySnapshotFile.restore(file, restored);
+
+        // when
+        restored.updateScore("home500_away500", 20, 2);
+        restored.remove("home1_away1");
+        final var started = restored.create("Mexico", "Canada");
+
+        // then
+        assertThat(restored.getTop(1).get(0).id).isEqualTo("home500_away500");
+        assertThat(restored.find("home1_away1")).isEmpty();
+        assertThat(restored.find(started)).isPresent();
+        assertThat(restored.getAll()).hasSize(1000);
+    }
+
+    @Test
+    void restore__fails_when_repository_is_not_empty() throws IOException {
+        // given
+        final var repository = new MatchSummaryRepository();
+        repository.create("Mexico", "Canada");
+        MatchSummarySnapshotFile.write(repository.getSnapshot(), file);
+
+        // then
+        assertThatThrownBy(() -> MatchSummarySnapshotFile.restore(file, repository))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Cannot restore into a repository with 1 matches");
+    }
+
+    @Test
+    void restore__fails_when_file_is_corrupt() throws IOException {
+        // given
+        final var repository = new MatchSummaryRepository();
+        repository.create("Mexico", "Canada");
+        MatchSummarySnapshotFile.write(repository.getSnapshot(), file);
+        final var bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        // then
+        assertThatThrownBy(() -> MatchSummarySnapshotFile.restore(file, new MatchSummaryRepository()))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Corrupt snapshot file %s".formatted(file));
+    }
+}
@@ -0,0 +1,258 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.ilzi.scorecard.model.Fixture.fixture;
+
+class ReplicationTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    @AfterEach
+    void close() throws Exception {
+        for (final var closeable : closeables) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    void follower__copies_board_and_follows_its_changes() throws Exception {
+        // given
+        final var leaderRepository = new MatchSummaryRepository();
+        final var mexicoCanada = leaderRepository.create("Mexico", "Canada");
+        leaderRepository.updateScore(mexicoCanada, 0, 5);
+        final var leader = startLeader(leaderRepository, 1024);
+        final var followerRepository = new MatchSummaryRepository();
+        final var follower = startFollower(followerRepository, leader);
+        assertThat(follower.awaitVersion(leaderRepository.getSnapshot().version(), TIMEOUT)).isTrue();
+
+        // when
+        final var spainBrazil = leaderRepository.create("Spain", "Brazil");
+        leaderRepository.createAll(List.of(fixture("Germany", "France"), fixture("Uruguay", "Italy")));
+        leaderRepository.updateScore(spainBrazil, 10, 2);
+        leaderRepository.remove(mexicoCanada);
+
+        // then
+        assertThat(follower.awaitVersion(leaderRepository.getSnapshot().version(), TIMEOUT)).isTrue();
+        assertThat(followerRepository.getAll()).containsExactlyElementsOf(leaderRepository.getAll());
+        assertThat(followerRepository.find(mexicoCanada)).isEmpty();
+        assertThat(followerRepository.get(followerRepository.handleOf("Spain", "Brazil")).homeTeamScore)
+            .isEqualTo(10);
+        assertThat(follower.snapshotsApplied()).isEqualTo(1L);
+        assertThat(followerRepository.version()).isEqualTo(leaderRepository.version());
+    }
+
+    @Test
+    void follower__applies_writes_received_out_of_version_order_in_version_order() throws Exception {
+        // given
+        final var source = new MatchSummaryRepository();
+        final var events = new ArrayList<MatchSummaryEvent>();
+        source.addListener(events::add);
+        source.create("Mexico", "Canada");
+        source.create("Spain", "Brazil");
+        final var serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        closeables.add(serverSocket);
+        final var followerRepository = new MatchSummaryRepository();
+        final var address = new InetSocketAddress(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        final var follower = ReplicationFollower.start(followerRepository, address, Duration.ofMillis(10));
+        closeables.add(0, follower);
+        final var socket = serverSocket.accept();
+        closeables.add(0, socket);
+        final var out = new DataOutputStream(socket.getOutputStream());
+        ReplicationLeader.writeSnapshot(out, new MatchSummaryRepository().getSnapshot());
+
+        // when
+        ReplicationLeader.writeEvents(out, List.of(events.get(1)), 0L);
+        out.flush();
+        final var heldBack = follower.awaitVersion(2L, Duration.ofMillis(200));
+        final var lagWhileHeldBack = follower.lag();
+        final var matchesWhileHeldBack = followerRepository.getAll().size();
+        ReplicationLeader.writeEvents(out, List.of(events.get(0)), 0L);
+        out.flush();
+
+        // then
+        assertThat(heldBack).isFalse();
+        assertThat(lagWhileHeldBack).isEqualTo(2L);
+        assertThat(matchesWhileHeldBack).isEqualTo(0);
+        assertThat(follower.awaitVersion(2L, TIMEOUT)).isTrue();
+        assertThat(follower.appliedVersion()).isEqualTo(2L);
+        assertThat(follower.lag()).isEqualTo(0L);
+        assertThat(followerRepository.getAll()).containsExactlyElementsOf(source.getAll());
+        assertThat(followerRepository.version()).isEqualTo(2L);
+    }
+
+    @Test
+    void follower__catches_up_from_snapshot_after_falling_behind() throws Exception {
+        // given
+        final var leaderRepository = new MatchSummaryRepository();
+        final var leader = startLeader(leaderRepository, 1);
+        final var followerRepository = new MatchSummaryRepository();
+        final var follower = startFollower(followerRepository, leader);
+        assertThat(follower.awaitVersion(leaderRepository.getSnapshot().version(), TIMEOUT)).isTrue();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            leaderRepository.create("home" + i, "away" + i);
+        }
+        leaderRepository.updateScore("home7_away7", 3, 1);
+
+        // then
+        assertThat(follower.awaitVersion(leaderRepository.getSnapshot().version(), TIMEOUT)).isTrue();
+        assertThat(followerRepository.getAll()).containsExactlyElementsOf(leaderRepository.getAll());
+        assertThat(follower.snapshotsApplied()).isGreaterThan(1L);
+    }
+
+    @Test
+    void follower__catches_up_from_snapshot_when_leader_board_is_restored() throws Exception {
+        // given
+        final var leaderRepository = new MatchSummaryRepository();
+        final var leader = startLeader(leaderRepository, 1024);
+        final var followerRepository = new MatchSummaryRepository();
+        final var follower = startFollower(followerRepository, leader);
+        assertThat(follower.awaitVersion(leaderRepository.getSnapshot().version(), TIMEOUT)).isTrue();
+        final var source = new MatchSummaryRepository();
+        source.create("Mexico", "Canada");
+        source.updateScore("Mexico_Canada", 0, 5);
+
+        // when
+        leaderRepository.restore(source.version(), source.getAll());
+        leaderRepository.create("Spain", "Brazil");
+
+        // then
+        assertThat(follower.awaitVersion(leaderRepository.getSnapshot().version(), TIMEOUT)).isTrue();
+        assertThat(followerRepository.getAll()).containsExactlyElementsOf(leaderRepository.getAll());
+        assertThat(follower.snapshotsApplied()).isGreaterThan(1L);
+    }
+
+    @Test
+    void follower__serves_several_followers_of_a_sharded_leader() throws Exception {
+        // given
+        final var leaderRepository = new MatchSummaryRepository(new HeapMatchStore(), 16, 4);
+        final var leader = startLeader(leaderRepository, 1024);
+        final var first = new MatchSummaryRepository();
+        final var second = new MatchSummaryRepository();
+        final var firstFollower = startFollower(first, leader);
+        final var secondFollower = startFollower(second, leader);
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            leaderRepository.updateScore(leaderRepository.create("home" + i, "away" + i), i % 5, 0);
+        }
+
+        // then
+        final var version = leaderRepository.getSnapshot().version();
+        assertThat(firstFollower.awaitVersion(version, TIMEOUT)).isTrue();
+        assertThat(secondFollower.awaitVersion(version, TIMEOUT)).isTrue();
+        assertThat(first.getAll()).containsExactlyElementsOf(leaderRepository.getAll());
+        assertThat(second.getAll()).containsExactlyElementsOf(leaderRepository.getAll());
+        assertThat(first.version()).isEqualTo(version);
+    }
+
+    @Test
+    void lag__drops_to_zero_once_follower_applied_everything() throws Exception {
+        // given
+        final var leaderRepository = new MatchSummaryRepository();
+        final var leader = startLeader(leaderRepository, 1024);
+        final var follower = startFollower(new MatchSummaryRepository(), leader);
+
+        // when
+        leaderRepository.create("Mexico", "Canada");
+        assertThat(follower.awaitVersion(leaderRepository.getSnapshot().version(), TIMEOUT)).isTrue();
+
+        // then
+        assertThat(follower.isConnected()).isTrue();
+        assertThat(follower.leaderVersion()).isEqualTo(leaderRepository.getSnapshot().version());
+        assertThat(follower.lag()).isEqualTo(0L);
+    }
+
+    @Test
+    void follower__reconnects_to_restarted_leader() throws Exception {
+        // given
+        final var leaderRepository = new MatchSummaryRepository();
+        final var leader = startLeader(leaderRepository, 1024);
+        final var port = leader.port();
+        final var followerRepository = new MatchSummaryRepository();
+        final var follower = startFollower(followerRepository, leader);
+        leaderRepository.create("Mexico", "Canada");
+        assertThat(follower.awaitVersion(leaderRepository.getSnapshot().version(), TIMEOUT)).isTrue();
+
+        // when
+        leader.close();
+        leaderRepository.create("Spain", "Brazil");
+        startLeader(leaderRepository, port, 1024);
+
+        // then
+        assertThat(follower.awaitVersion(leaderRepository.getSnapshot().version(), TIMEOUT)).isTrue();
+        assertThat(followerRepository.getAll()).containsExactlyElementsOf(leaderRepository.getAll());
+        assertThat(follower.snapshotsApplied()).isEqualTo(2L);
+    }
+
+    @Test
+    void follower__keeps_its_version_increasing_when_leader_restarts_at_lower_version() throws Exception {
+        // given
+        final var leaderRepository = new MatchSummaryRepository();
+        final var leader = startLeader(leaderRepository, 1024);
+        final var port = leader.port();
+        final var followerRepository = new MatchSummaryRepository();
+        final var follower = startFollower(followerRepository, leader);
+        for (int i = 0; i < 5; i++) {
+            leaderRepository.create("home" + i, "away" + i);
+        }
+        assertThat(follower.awaitVersion(leaderRepository.version(), TIMEOUT)).isTrue();
+        final var versionBeforeRestart = followerRepository.version();
+
+        // when
+        leader.close();
+        final var restartedRepository = new MatchSummaryRepository();
+        restartedRepository.create("Spain", "Brazil");
+        startLeader(restartedRepository, port, 1024);
+        final var deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (follower.appliedVersion() != restartedRepository.version() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // then
+        assertThat(follower.appliedVersion()).isEqualTo(1L);
+        assertThat(follower.leaderVersion()).isEqualTo(1L);
+        assertThat(follower.lag()).isEqualTo(0L);
+        assertThat(followerRepository.getAll()).containsExactlyElementsOf(restartedRepository.getAll());
+        assertThat(followerRepository.version()).isEqualTo(versionBeforeRestart + 1);
+
+        restartedRepository.create("Germany", "France");
+        assertThat(follower.awaitVersion(restartedRepository.version(), TIMEOUT)).isTrue();
+        assertThat(followerRepository.getAll()).containsExactlyElementsOf(restartedRepository.getAll());
+        assertThat(followerRepository.version()).isEqualTo(versionBeforeRestart + 2);
+    }
+
+    private ReplicationLeader startLeader(MatchSummaryRepository repository, int bufferCapacity) throws Exception {
+        return startLeader(repository, 0, bufferCapacity);
+    }
+
+    private ReplicationLeader startLeader(MatchSummaryRepository repository,
+                                          int port,
+                                          int bufferCapacity) throws Exception {
+        final var leader = ReplicationLeader.start(repository, port, bufferCapacity, Duration.ofMillis(10));
+        closeables.add(leader);
+        return leader;
+    }
+
+    private ReplicationFollower startFollower(MatchSummaryRepository repository, ReplicationLeader leader) {
+        final var address = new InetSocketAddress(InetAddress.getLoopbackAddress(), leader.port());
+        final var follower = ReplicationFollower.start(repository, address, Duration.ofMillis(10));
+        closeables.add(0, follower);
+        return follower;
+    }
+}
@@ -0,0 +1,45 @@
+package org.ilzi.scorecard.repository;
+
+import org.ilzi.scorecard.model.MatchSummaryTestData;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TeamIndexTest implements MatchSummaryTestData {
+
+    private final TeamIndex index = new TeamIndex();
+
+    @Test
+    void add__indexes_match_under_both_teams() {
+        // given
+        final var mexicoCanada = aMatchSummary().id("Mexico_Canada").homeTeam("Mexico").awayTeam("Canada").build();
+        final var spainMexico = aMatchSummary().id("Spain_Mexico").homeTeam("Spain").awayTeam("Mexico").build();
+
+        // when
+        index.add(mexicoCanada);
+        index.add(spainMexico);
+        index.add(spainMexico);
+
+        // then
+        assertThat(index.matchIdsOf("Mexico")).containsExactlyInAnyOrder("Mexico_Canada", "Spain_Mexico");
+        assertThat(index.matchIdsOf("Canada")).containsExactly("Mexico_Canada");
+        assertThat(index.matchIdsOf("Spain")).containsExactly("Spain_Mexico");
+        assertThat(index.matchIdsOf("Brazil")).isEmpty();
+    }
+
+    @Test
+    void remove__drops_match_and_teams_left_without_matches() {
+        // given
+        final var mexicoCanada = aMatchSummary().id("Mexico_Canada").homeTeam("Mexico").awayTeam("Canada").build();
+        final var spainMexico = aMatchSummary().id("Spain_Mexico").homeTeam("Spain").awayTeam("Mexico").build();
+        index.add(mexicoCanada);
+        index.add(spainMexico);
+
+        // when
+        index.remove(mexicoCanada);
+
+        // then
+        assertThat(index.matchIdsOf("Mexico")).containsExactly("Spain_Mexico");
+        assertThat(index.matchIdsOf("Canada")).isEmpty();
+    }
+}
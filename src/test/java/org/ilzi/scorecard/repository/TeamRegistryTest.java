@@ -0,0 +1,59 @@
+package org.ilzi.scorecard.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.ilzi.scorecard.model.MatchHandle.awayTeamId;
+import static org.ilzi.scorecard.model.MatchHandle.homeTeamId;
+import static org.ilzi.scorecard.model.MatchHandle.matchHandle;
+
+class TeamRegistryTest {
+
+    private final TeamRegistry registry = new TeamRegistry();
+
+    @Test
+    void intern__assigns_dense_ids_and_returns_same_id_for_same_team() {
+        // when
+        final var mexico = registry.intern("Mexico");
+        final var canada = registry.intern("Canada");
+
+        // then
+        assertThat(mexico).isEqualTo(0);
+        assertThat(canada).isEqualTo(1);
+        assertThat(registry.intern("Mexico")).isEqualTo(mexico);
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    void name__resolves_interned_team_across_growth() {
+        // given
+        for (int i = 0; i < 100; i++) {
+            registry.intern("Team" + i);
+        }
+
+        // then
+        assertThat(registry.name(0)).isEqualTo("Team0");
+        assertThat(registry.name(99)).isEqualTo("Team99");
+        assertThat(registry.idOf("Team42")).isEqualTo(42);
+        assertThat(registry.idOf("Unknown")).isEqualTo(-1);
+    }
+
+    @Test
+    void name__throws_exception_when_team_not_found() {
+        // then
+        assertThatThrownBy(() -> registry.name(3))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Team with id 3 not found");
+    }
+
+    @Test
+    void matchHandle__packs_and_unpacks_team_ids() {
+        // when
+        final var handle = matchHandle(7, Integer.MAX_VALUE);
+
+        // then
+        assertThat(homeTeamId(handle)).isEqualTo(7);
+        assertThat(awayTeamId(handle)).isEqualTo(Integer.MAX_VALUE);
+    }
+}
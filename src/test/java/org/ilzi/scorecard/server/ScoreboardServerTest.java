@@ -0,0 +1,211 @@
+package org.ilzi.scorecard.server;
+
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+import org.ilzi.scorecard.repository.MatchSummaryRepository;
+import org.ilzi.scorecard.service.MatchSummaryEventPublisher;
+import org.ilzi.scorecard.service.MatchSummaryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoreboardServerTest {
+
+    private final MatchSummaryService service = new MatchSummaryService();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ScoreboardServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void matches__starts_match_and_serves_board() throws Exception {
+        // given
+        server = ScoreboardServer.start(service, new InetSocketAddress("localhost", 0));
+
+        // when
+        final var created = send("POST", "/matches?homeTeam=Mexico&awayTeam=Canada");
+        final var board = send("GET", "/matches");
+
+        // then
+        assertThat(created.statusCode()).isEqualTo(201);
+        assertThat(created.body()).isEqualTo("{\"id\":\"Mexico_Canada\"}");
+        assertThat(board.statusCode()).isEqualTo(200);
+        assertThat(board.body()).startsWith("{\"version\":1,\"matchSummaries\":[{\"id\":\"Mexico_Canada\"");
+    }
+
+    @Test
+    void match__updates_score_and_ends_match() throws Exception {
+        // given
+        server = ScoreboardServer.start(service, new InetSocketAddress("localhost", 0));
+        service.startMatch("Mexico", "Canada");
+
+        // when
+        final var updated = send("PUT", "/matches/Mexico_Canada/score?homeTeamScore=0&awayTeamScore=5");
+        final var match = send("GET", "/matches/Mexico_Canada");
+        final var ended = send("DELETE", "/matches/Mexico_Canada");
+
+        // then
+        assertThat(updated.statusCode()).isEqualTo(204);
+        assertThat(match.body()).contains("\"homeTeamScore\":0,\"awayTeamScore\":5");
+        assertThat(ended.statusCode()).isEqualTo(204);
+        assertThat(service.getAllMatchSummaries()).isEmpty();
+    }
+
+    @Test
+    void matches__maps_failures_to_status_codes() throws Exception {
+        // given
+        server = ScoreboardServer.start(service, new InetSocketAddress("localhost", 0));
+        service.startMatch("Mexico", "Canada");
+
+        // when
+        final var duplicate = send("POST", "/matches?homeTeam=Mexico&awayTeam=Canada");
+        final var missing = send("GET", "/matches/Spain_Brazil");
+        final var malformed = send("PUT", "/matches/Mexico_Canada/score?homeTeamScore=x&awayTeamScore=1");
+        final var incomplete = send("POST", "/matches?homeTeam=Spain");
+
+        // then
+        assertThat(duplicate.statusCode()).isEqualTo(409);
+        assertThat(duplicate.body()).isEqualTo("{\"error\":\"Match with id Mexico_Canada already exists\"}");
+        assertThat(missing.statusCode()).isEqualTo(404);
+        assertThat(malformed.statusCode()).isEqualTo(400);
+        assertThat(incomplete.statusCode()).isEqualTo(400);
+        assertThat(incomplete.body()).isEqualTo("{\"error\":\"Parameter awayTeam is missing\"}");
+    }
+
+    @Test
+    void score__rejects_lower_score_as_bad_request() throws Exception {
+        // given
+        server = ScoreboardServer.start(service, new InetSocketAddress("localhost", 0));
+        service.startMatch("Mexico", "Canada");
+        service.updateScore("Mexico_Canada", 3, 0);
+
+        // when
+        final var rejected = send("PUT", "/matches/Mexico_Canada/score?homeTeamScore=1&awayTeamScore=0");
+        final var unknown = send("PUT", "/matches/Spain_Brazil/score?homeTeamScore=1&awayTeamScore=0");
+
+        // then
+        assertThat(rejected.statusCode()).isEqualTo(400);
+        assertThat(rejected.body())
+            .isEqualTo("{\"error\":\"newHomeTeamScore must be greater or equal to 3, but is 1\"}");
+        assertThat(unknown.statusCode()).isEqualTo(404);
+        assertThat(service.getMatchSummary("Mexico_Canada").homeTeamScore).isEqualTo(3);
+    }
+
+    @Test
+    void events__streams_board_then_changes() throws Exception {
+        // given
+        server = ScoreboardServer.start(service, new InetSocketAddress("localhost", 0));
+        service.startMatch("Mexico", "Canada");
+        final var events = openEvents();
+
+        // when
+        final var board = nextEvent(events);
+        service.updateScore("Mexico_Canada", 1, 0);
+        final var change = nextEvent(events);
+
+        // then
+        assertThat(board).startsWith("event: board\ndata: {\"version\":1,");
+        assertThat(change).startsWith("event: change\ndata: {\"type\":\"SCORE_UPDATED\",\"version\":2,");
+        assertThat(change).contains("\"homeTeamScore\":1");
+        assertThat(server.streams()).isEqualTo(1);
+    }
+
+    @Test
+    void events__sends_heartbeats_to_idle_streams() throws Exception {
+        // given
+        server = ScoreboardServer.start(
+            service, new InetSocketAddress("localhost", 0), 16, Duration.ofMillis(20));
+        final var events = openEvents();
+        nextEvent(events);
+
+        // when
+        final var heartbeat = nextEvent(events);
+
+        // then
+        assertThat(heartbeat).isEqualTo(":");
+    }
+
+    @Test
+    void events__ends_streams_when_change_feed_completes() throws Exception {
+        // given
+        final var feed = new CompletableFeed();
+        server = ScoreboardServer.start(new MatchSummaryService(new MatchSummaryRepository(), feed),
+            new InetSocketAddress("localhost", 0), 16, Duration.ofMillis(20));
+        final var events = openEvents();
+        nextEvent(events);
+
+        // when
+        feed.complete();
+
+        // then
+        var lines = 0;
+        for (var line = events.readLine(); line != null; line = events.readLine()) {
+            assertThat(line).isIn(":", "");
+            // a stream still writing heartbeats after the feed ended would never end
+            assertThat(++lines).isLessThan(100);
+        }
+    }
+
+    private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+        final var request = HttpRequest.newBuilder(URI.create("http://localhost:%d%s".formatted(server.port(), path)))
+            .method(method, HttpRequest.BodyPublishers.noBody())
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private BufferedReader openEvents() throws IOException {
+        final var connection = (HttpURLConnection) URI.create("http://localhost:%d/events".formatted(server.port()))
+            .toURL().openConnection();
+        connection.setReadTimeout(5_000);
+        return new BufferedReader(new InputStreamReader(connection.getInputStream(), UTF_8));
+    }
+
+    private static String nextEvent(BufferedReader events) throws IOException {
+        final var event = new StringBuilder();
+        for (var line = events.readLine(); line != null && !line.isEmpty(); line = events.readLine()) {
+            if (!event.isEmpty()) {
+                event.append('\n');
+            }
+            event.append(line);
+        }
+        return event.toString();
+    }
+
+    /**
+     * Lets a test end the change feed of its subscribers.
+     */
+    private static final class CompletableFeed extends MatchSummaryEventPublisher {
+
+        private final List<Flow.Subscriber<? super MatchSummaryEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super MatchSummaryEvent> subscriber) {
+            subscribers.add(subscriber);
+            super.subscribe(subscriber);
+        }
+
+        void complete() {
+            subscribers.forEach(Flow.Subscriber::onComplete);
+        }
+    }
+}
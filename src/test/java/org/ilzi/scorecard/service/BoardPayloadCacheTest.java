@@ -0,0 +1,132 @@
+package org.ilzi.scorecard.service;
+
+import org.ilzi.scorecard.model.MatchSummaryTestData;
+import org.ilzi.scorecard.repository.TestMatchSummaryRepository;
+import org.ilzi.scorecard.service.BoardPayloadCache.Format;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoardPayloadCacheTest implements MatchSummaryTestData {
+
+    private final TestMatchSummaryRepository repository = new TestMatchSummaryRepository();
+    private final BoardPayloadCache cache = new BoardPayloadCache(repository);
+
+    @Test
+    void encodes_board_as_json() {
+        // given
+        repository.add(aMatchSummary().id("Mexico_Canada").homeTeam("Mexico").awayTeam("Canada")
+            .homeTeamScore(0).awayTeamScore(5).createdDate(1L).startSequence(1L).build());
+        repository.add(aMatchSummary().id("say \"hi\"").homeTeam("Spain").awayTeam("Brazil")
+            .homeTeamScore(1).awayTeamScore(0).createdDate(2L).startSequence(2L).build());
+
+        // when
+        final var payload = cache.getAll(Format.JSON);
+
+        // then
+        assertThat(string(payload)).isEqualTo("{\"version\":2,\"matchSummaries\":["
+            + "{\"id\":\"Mexico_Canada\",\"homeTeam\":\"Mexico\",\"awayTeam\":\"Canada\","
+            + "\"homeTeamScore\":0,\"awayTeamScore\":5,\"createdTimestamp\":1,\"startSequence\":1},"
+            + "{\"id\":\"say \\\"hi\\\"\",\"homeTeam\":\"Spain\",\"awayTeam\":\"Brazil\","
+            + "\"homeTeamScore\":1,\"awayTeamScore\":0,\"createdTimestamp\":2,\"startSequence\":2}]}");
+    }
+
+    @Test
+    void encodes_top_matches_in_binary() throws IOException {
+        // given
+        repository.create("Mexico", "Canada");
+        repository.create("Spain", "Brazil");
+        repository.updateScore("Spain_Brazil", 10, 2);
+
+        // when
+        final var payload = cache.getTop(1, Format.BINARY);
+
+        // then
+        final var in = new DataInputStream(new ByteArrayInputStream(bytes(payload)));
+        assertThat(in.readLong()).isEqualTo(3L);
+        assertThat(in.readInt()).isEqualTo(1);
+        assertThat(in.readUTF()).isEqualTo("Spain_Brazil");
+        assertThat(in.readUTF()).isEqualTo("Spain");
+        assertThat(in.readUTF()).isEqualTo("Brazil");
+        assertThat(in.readInt()).isEqualTo(10);
+        assertThat(in.readInt()).isEqualTo(2);
+        assertThat(in.readLong()).isEqualTo(repository.get("Spain_Brazil").createdTimestamp);
+        assertThat(in.readLong()).isEqualTo(repository.get("Spain_Brazil").startSequence);
+        assertThat(in.available()).isEqualTo(0);
+    }
+
+    @Test
+    void returns_independent_read_only_views_of_the_same_payload() {
+        // given
+        repository.create("Mexico", "Canada");
+        final var first = cache.getAll(Format.JSON);
+
+        // when
+        first.get(new byte[first.remaining()]);
+        final var second = cache.getAll(Format.JSON);
+
+        // then
+        assertThat(first.isReadOnly()).isTrue();
+        assertThat(first.isDirect()).isTrue();
+        assertThat(first.remaining()).isEqualTo(0);
+        assertThat(second.position()).isEqualTo(0);
+        assertThat(second.remaining()).isEqualTo(first.limit());
+    }
+
+    @Test
+    void encodes_new_payload_when_board_version_changes() {
+        // given
+        repository.create("Mexico", "Canada");
+        final var before = string(cache.getAll(Format.JSON));
+
+        // when
+        repository.updateScore("Mexico_Canada", 1, 0);
+
+        // then
+        final var after = string(cache.getAll(Format.JSON));
+        assertThat(after).isNotEqualTo(before);
+        assertThat(after).startsWith("{\"version\":2,");
+        assertThat(after).contains("\"homeTeamScore\":1");
+    }
+
+    @Test
+    void serves_top_k_slices_beyond_the_cached_ones() {
+        // given
+        for (int i = 0; i < 100; i++) {
+            repository.create("home" + i, "away" + i);
+        }
+
+        // when
+        for (int k = 0; k < BoardPayloadCache.MAX_PAYLOADS_PER_VERSION + 10; k++) {
+            cache.getTop(k, Format.BINARY);
+        }
+
+        // then
+        assertThat(ByteBuffer.wrap(bytes(cache.getTop(70, Format.BINARY))).getInt(8)).isEqualTo(70);
+    }
+
+    @Test
+    void fails_to_get_top_with_negative_k() {
+        // then
+        assertThatThrownBy(() -> cache.getTop(-1, Format.JSON))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("k must not be negative, but is -1");
+    }
+
+    private static String string(ByteBuffer payload) {
+        return new String(bytes(payload), UTF_8);
+    }
+
+    private static byte[] bytes(ByteBuffer payload) {
+        final var bytes = new byte[payload.remaining()];
+        payload.duplicate().get(bytes);
+        return bytes;
+    }
+}
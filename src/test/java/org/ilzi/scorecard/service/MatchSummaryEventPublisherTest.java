@@ -0,0 +1,207 @@
+package org.ilzi.scorecard.service;
+
+import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+import org.ilzi.scorecard.model.MatchSummaryTestData;
+import org.ilzi.scorecard.repository.MatchSummaryListener;
+import org.ilzi.scorecard.repository.MatchSummaryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.NO_RANK;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.ENDED;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.SCORE_UPDATED;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.STARTED;
+
+class MatchSummaryEventPublisherTest implements MatchSummaryTestData {
+
+    private final MatchSummaryEventPublisher publisher = new MatchSummaryEventPublisher(Runnable::run, 2);
+    private final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+    @Test
+    void delivers_events_to_subscriber_with_demand() {
+        // given
+        publisher.subscribe(subscriber);
+        subscriber.request(10);
+        final var event = started(aMatchSummary().build(), 0, 1L);
+
+        // when
+        publisher.onEvent(event);
+
+        // then
+        assertThat(subscriber.events).containsExactly(event);
+    }
+
+    @Test
+    void delivers_pending_events_once_subscriber_requests_them() {
+        // given
+        publisher.subscribe(subscriber);
+        final var first = started(aMatchSummary().build(), 0, 1L);
+        final var second = started(aMatchSummary().build(), 1, 2L);
+        publisher.onEvent(first);
+        publisher.onEvent(second);
+
+        // when
+        subscriber.request(1);
+
+        // then
+        assertThat(subscriber.events).containsExactly(first);
+
+        // and when
+        subscriber.request(1);
+
+        // then
+        assertThat(subscriber.events).containsExactly(first, second);
+    }
+
+    @Test
+    void conflates_pending_events_of_the_same_match() {
+        // given
+        publisher.subscribe(subscriber);
+        final var matchSummary = aMatchSummary().build();
+        final var firstUpdate = matchSummary.withNewScore(1, 0);
+        final var secondUpdate = matchSummary.withNewScore(2, 0);
+        publisher.onEvent(new MatchSummaryEvent(SCORE_UPDATED, firstUpdate, 5, 3, 1L));
+        publisher.onEvent(new MatchSummaryEvent(SCORE_UPDATED, secondUpdate, 3, 1, 2L));
+
+        // when
+        subscriber.request(10);
+
+        // then
+        assertThat(subscriber.events).containsExactly(new MatchSummaryEvent(SCORE_UPDATED, secondUpdate, 5, 1, 2L));
+    }
+
+    @Test
+    void drops_pending_events_of_match_started_and_ended_in_between() {
+        // given
+        publisher.subscribe(subscriber);
+        final var matchSummary = aMatchSummary().build();
+        publisher.onEvent(started(matchSummary, 0, 1L));
+        publisher.onEvent(new MatchSummaryEvent(ENDED, matchSummary, 0, NO_RANK, 2L));
+
+        // when
+        subscriber.request(10);
+
+        // then
+        assertThat(subscriber.events).isEmpty();
+    }
+
+    @Test
+    void drops_oldest_pending_event_when_buffer_is_full() {
+        // given
+        publisher.subscribe(subscriber);
+        final var first = started(aMatchSummary().build(), 0, 1L);
+        final var second = started(aMatchSummary().build(), 1, 2L);
+        final var third = started(aMatchSummary().build(), 2, 3L);
+        publisher.onEvent(first);
+        publisher.onEvent(second);
+        publisher.onEvent(third);
+
+        // when
+        subscriber.request(10);
+
+        // then
+        assertThat(subscriber.events).containsExactly(second, third);
+    }
+
+    @Test
+    void stops_delivering_events_after_cancel() {
+        // given
+        publisher.subscribe(subscriber);
+        subscriber.request(10);
+        subscriber.subscription.cancel();
+
+        // when
+        publisher.onEvent(started(aMatchSummary().build(), 0, 1L));
+
+        // then
+        assertThat(subscriber.events).isEmpty();
+    }
+
+    @Test
+    void fails_subscription_when_requesting_non_positive_number_of_events() {
+        // given
+        publisher.subscribe(subscriber);
+
+        // when
+        subscriber.request(0);
+
+        // then
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void listens_to_repository_only_while_it_has_subscribers() {
+        // given
+        final var listeners = new ArrayList<MatchSummaryListener>();
+        final var repository = new MatchSummaryRepository() {
+            @Override
+            public void addListener(MatchSummaryListener listener) {
+                listeners.add(listener);
+                super.addListener(listener);
+            }
+
+            @Override
+            public void removeListener(MatchSummaryListener listener) {
+                listeners.remove(listener);
+                super.removeListener(listener);
+            }
+        };
+        publisher.attachTo(repository);
+        repository.create("Mexico", "Canada");
+        final var listenersBeforeSubscribe = List.copyOf(listeners);
+
+        // when
+        publisher.subscribe(subscriber);
+        subscriber.request(10);
+        repository.updateScore("Mexico_Canada", 1, 0);
+        final var listenersWhileSubscribed = List.copyOf(listeners);
+        subscriber.subscription.cancel();
+        repository.updateScore("Mexico_Canada", 2, 0);
+
+        // then
+        assertThat(listenersBeforeSubscribe).isEmpty();
+        assertThat(listenersWhileSubscribed).containsExactly(publisher);
+        assertThat(listeners).isEmpty();
+        assertThat(subscriber.events).hasSize(1);
+        assertThat(subscriber.events.get(0).matchSummary.homeTeamScore).isEqualTo(1);
+    }
+
+    private static MatchSummaryEvent started(MatchSummary matchSummary, int rank, long version) {
+        return new MatchSummaryEvent(STARTED, matchSummary, NO_RANK, rank, version);
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<MatchSummaryEvent> {
+
+        final List<MatchSummaryEvent> events = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+
+        void request(long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(MatchSummaryEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -1,11 +1,25 @@
 package org.ilzi.scorecard.service;
 
 import org.ilzi.scorecard.model.MatchSummary;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
 import org.ilzi.scorecard.model.MatchSummaryTestData;
+import org.ilzi.scorecard.repository.RankingView;
 import org.ilzi.scorecard.repository.TestMatchSummaryRepository;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.ilzi.scorecard.model.Fixture.fixture;
+import static org.ilzi.scorecard.model.ScoreUpdate.scoreUpdate;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.NO_RANK;
+import static org.ilzi.scorecard.model.MatchSummaryEvent.Type.STARTED;
 
 class MatchSummaryServiceTest implements MatchSummaryTestData {
 
@@ -60,6 +74,108 @@ class MatchSummaryServiceTest implements MatchSummaryTestData {
         assertThat(repository.find(existingSummary.id)).isEmpty();
     }
 
+    @Test
+    void updateScore_withHandle_shouldUpdateMatchSummaryScore() {
+        // given
+        final var matchId = service.startMatch("TeamA", "TeamB");
+        final var handle = service.matchHandle("TeamA", "TeamB");
+
+        // when
+        service.updateScore(handle, 3, 2);
+
+        // then
+        final var updatedMatch = service.getMatchSummary(handle);
+        assertThat(updatedMatch.id).isEqualTo(matchId);
+        assertThat(updatedMatch.homeTeamScore).isEqualTo(3);
+        assertThat(updatedMatch.awayTeamScore).isEqualTo(2);
+    }
+
+    @Test
+    void endMatch_withHandle_shouldRemoveMatchSummary() {
+        // given
+        final var matchId = service.startMatch("TeamA", "TeamB");
+
+        // when
+        service.endMatch(service.matchHandle("TeamA", "TeamB"));
+
+        // then
+        assertThat(repository.find(matchId)).isEmpty();
+    }
+
+    @Test
+    void startMatches_shouldCreateAllMatches() {
+        // when
+        final var result = service.startMatches(List.of(fixture("TeamA", "TeamB"), fixture("TeamC", "TeamD")));
+
+        // then
+        assertThat(result.isSuccessful()).isTrue();
+        assertThat(repository.find("TeamA_TeamB")).isPresent();
+        assertThat(repository.find("TeamC_TeamD")).isPresent();
+    }
+
+    @Test
+    void startMatchesAllOrNothing_shouldStartNoneWhenOneFails() {
+        // given
+        service.startMatch("TeamC", "TeamD");
+
+        // when
+        final var result = service.startMatchesAllOrNothing(
+            List.of(fixture("TeamA", "TeamB"), fixture("TeamC", "TeamD")));
+
+        // then
+        assertThat(result.succeeded).isEmpty();
+        assertThat(result.failed).hasSize(1);
+        assertThat(repository.find("TeamA_TeamB")).isEmpty();
+    }
+
+    @Test
+    void updateScores_shouldUpdateAllMatchSummaryScores() {
+        // given
+        final var firstSummary = givenExists(aMatchSummary());
+        final var secondSummary = givenExists(aMatchSummary());
+
+        // when
+        final var result = service.updateScores(List.of(
+            scoreUpdate(firstSummary.id, 1, 0),
+            scoreUpdate(secondSummary.id, 0, 2)));
+
+        // then
+        assertThat(result.isSuccessful()).isTrue();
+        assertThat(repository.get(firstSummary.id).homeTeamScore).isEqualTo(1);
+        assertThat(repository.get(secondSummary.id).awayTeamScore).isEqualTo(2);
+    }
+
+    @Test
+    void endMatches_shouldRemoveAllMatchSummaries() {
+        // given
+        final var firstSummary = givenExists(aMatchSummary());
+        final var secondSummary = givenExists(aMatchSummary());
+
+        // when
+        service.endMatches(List.of(firstSummary.id, secondSummary.id));
+
+        // then
+        assertThat(repository.getAll()).isEmpty();
+    }
+
+    @Test
+    void getTopPayload_shouldReturnSerializedTopMatches() {
+        // given
+        service.startMatch("Mexico", "Canada");
+        service.startMatch("Spain", "Brazil");
+        service.updateScore("Mexico_Canada", 1, 0);
+
+        // when
+        final var payload = service.getTopPayload(1, BoardPayloadCache.Format.JSON);
+
+        // then
+        final var bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        assertThat(new String(bytes, UTF_8))
+            .startsWith("{\"version\":3,\"matchSummaries\":[{\"id\":\"Mexico_Canada\"")
+            .doesNotContain("Spain");
+    }
+
     @Test
     void getAll_returns_all_matches_sorted_by_score_and_created_date() {
         // given
@@ -88,6 +204,139 @@ class MatchSummaryServiceTest implements MatchSummaryTestData {
         assertThat(result).containsExactly(firstMatch, fourthMatch, thirdMatch, secondMatch);
     }
 
+    @Test
+    void getMatchSummariesOf_returns_matches_of_team() {
+        // given
+        service.startMatch("TeamA", "TeamB");
+        service.startMatch("TeamC", "TeamD");
+
+        // when
+        final var result = service.getMatchSummariesOf("TeamB");
+
+        // then
+        assertThat(result).containsExactly(repository.get("TeamA_TeamB"));
+    }
+
+    @Test
+    void getRankingView_returns_matches_in_view_order() {
+        // given
+        service.registerRankingView("TeamA", RankingView.Key.GOAL_DIFFERENCE,
+            matchSummary -> matchSummary.homeTeam.equals("TeamA") || matchSummary.awayTeam.equals("TeamA"));
+        service.startMatch("TeamA", "TeamB");
+        service.startMatch("TeamC", "TeamA");
+        service.startMatch("TeamD", "TeamE");
+        service.updateScore("TeamC_TeamA", 0, 2);
+
+        // when
+        final var result = service.getRankingView("TeamA");
+
+        // then
+        assertThat(result).containsExactly(repository.get("TeamC_TeamA"), repository.get("TeamA_TeamB"));
+    }
+
+    @Test
+    void getTop_returns_best_matches() {
+        // given
+        final var firstMatch = givenExists(aMatchSummary().homeTeamScore(2));
+        givenExists(aMatchSummary().homeTeamScore(1));
+
+        // when
+        final var result = service.getTop(1);
+
+        // then
+        assertThat(result).containsExactly(firstMatch);
+    }
+
+    @Test
+    void getPage_returns_requested_page_of_matches() {
+        // given
+        givenExists(aMatchSummary().homeTeamScore(2));
+        final var secondMatch = givenExists(aMatchSummary().homeTeamScore(1));
+
+        // when
+        final var result = service.getPage(1, 20);
+
+        // then
+        assertThat(result).containsExactly(secondMatch);
+    }
+
+    @Test
+    void getAllIfChanged_returns_board_only_when_version_moved() {
+        // given
+        final var matchSummary = givenExists(aMatchSummary());
+        final var version = repository.getSnapshot().version();
+
+        // when
+        final var unchanged = service.getAllIfChanged(version);
+        final var changed = service.getAllIfChanged(version - 1);
+
+        // then
+        assertThat(unchanged).isEmpty();
+        assertThat(changed).isPresent();
+        assertThat(changed.get().version()).isEqualTo(version);
+        assertThat(changed.get().matchSummaries()).containsExactly(matchSummary);
+    }
+
+    @Test
+    void awaitChange_returns_board_after_next_write() throws Exception {
+        // given
+        final var version = repository.getSnapshot().version();
+        final var executor = Executors.newSingleThreadExecutor();
+
+        // when
+        final var awaited = executor.submit(() -> service.awaitChange(version, Duration.ofSeconds(10)));
+        Thread.sleep(50);
+        final var matchId = service.startMatch("TeamA", "TeamB");
+
+        // then
+        final var board = awaited.get(5, TimeUnit.SECONDS);
+        assertThat(board).isPresent();
+        assertThat(board.get().matchSummaries()).containsExactly(repository.get(matchId));
+        executor.shutdown();
+    }
+
+    @Test
+    void awaitChange_returns_empty_on_timeout() throws Exception {
+        // when
+        final var board = service.awaitChange(repository.getSnapshot().version(), Duration.ofMillis(20));
+
+        // then
+        assertThat(board).isEmpty();
+    }
+
+    @Test
+    void changes_publishes_board_changes_to_subscribers() {
+        // given
+        final var service = new MatchSummaryService(repository, new MatchSummaryEventPublisher(Runnable::run, 16));
+        final var events = new ArrayList<MatchSummaryEvent>();
+        service.changes().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(MatchSummaryEvent item) {
+                events.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        // when
+        final var matchId = service.startMatch("TeamA", "TeamB");
+
+        // then
+        assertThat(events).containsExactly(
+            new MatchSummaryEvent(STARTED, repository.get(matchId), NO_RANK, 0, repository.getSnapshot().version()));
+    }
+
     private MatchSummary givenExists(MatchSummary.Builder builder) {
         final var matchSummary = builder.build();
         repository.add(matchSummary);
@@ -0,0 +1,181 @@
+package org.ilzi.scorecard.service;
+
+import org.ilzi.scorecard.model.BatchResult;
+import org.ilzi.scorecard.model.MatchSummaryEvent;
+import org.ilzi.scorecard.model.MatchSummaryTestData;
+import org.ilzi.scorecard.model.ScoreUpdate;
+import org.ilzi.scorecard.repository.TestMatchSummaryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.ilzi.scorecard.model.ScoreUpdate.scoreUpdate;
+import static org.ilzi.scorecard.service.ScoreIngestionPipeline.Backpressure.BLOCK;
+import static org.ilzi.scorecard.service.ScoreIngestionPipeline.Backpressure.DROP_OLDEST;
+import static org.ilzi.scorecard.service.ScoreIngestionPipeline.Backpressure.FAIL;
+
+class ScoreIngestionPipelineTest implements MatchSummaryTestData {
+
+    private final TestMatchSummaryRepository repository = new TestMatchSummaryRepository();
+    private final MatchSummaryService service = new MatchSummaryService(repository);
+    private final List<BatchResult.Failure<ScoreUpdate>> failures = new CopyOnWriteArrayList<>();
+    private final List<MatchSummaryEvent> events = new CopyOnWriteArrayList<>();
+    private final CountDownLatch writerBlocked = new CountDownLatch(1);
+    private final CountDownLatch releaseWriter = new CountDownLatch(1);
+    private ScoreIngestionPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        releaseWriter.countDown();
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    void applies_submitted_updates() throws InterruptedException {
+        // given
+        final var matchId = service.startMatch("TeamA", "TeamB");
+        pipeline = new ScoreIngestionPipeline(service, 16, BLOCK, failures::add);
+
+        // when
+        pipeline.submit(matchId, 1, 0);
+        pipeline.flush();
+
+        // then
+        assertThat(repository.get(matchId).homeTeamScore).isEqualTo(1);
+        assertThat(failures).isEmpty();
+    }
+
+    @Test
+    void coalesces_pending_updates_of_the_same_match() throws InterruptedException {
+        // given
+        final var first = service.startMatch("TeamA", "TeamB");
+        final var second = service.startMatch("TeamC", "TeamD");
+        pipeline = new ScoreIngestionPipeline(service, 16, BLOCK, failures::add);
+        givenWriterBlockedOn(first);
+
+        // when
+        pipeline.submit(first, 2, 0);
+        pipeline.submit(second, 0, 1);
+        pipeline.submit(first, 3, 0);
+        releaseWriter.countDown();
+        pipeline.flush();
+
+        // then
+        final var scores = events.stream()
+            .map(event -> event.matchSummary.homeTeamScore + ":" + event.matchSummary.awayTeamScore)
+            .toList();
+        assertThat(scores).containsExactly("1:0", "3:0", "0:1");
+        assertThat(events.get(1).version).isEqualTo(events.get(2).version);
+    }
+
+    @Test
+    void drops_oldest_pending_update_when_buffer_is_full() throws InterruptedException {
+        // given
+        final var first = service.startMatch("TeamA", "TeamB");
+        final var second = service.startMatch("TeamC", "TeamD");
+        pipeline = new ScoreIngestionPipeline(service, 2, DROP_OLDEST, failures::add);
+        givenWriterBlockedOn(first);
+
+        // when
+        pipeline.submit(second, 1, 0);
+        pipeline.submit(second, 2, 0);
+        pipeline.submit(first, 5, 0);
+        releaseWriter.countDown();
+        pipeline.flush();
+
+        // then
+        assertThat(pipeline.droppedUpdates()).isEqualTo(1L);
+        assertThat(repository.get(second).homeTeamScore).isEqualTo(2);
+        assertThat(repository.get(first).homeTeamScore).isEqualTo(5);
+    }
+
+    @Test
+    void rejects_update_when_buffer_is_full_and_policy_is_fail() throws InterruptedException {
+        // given
+        final var first = service.startMatch("TeamA", "TeamB");
+        pipeline = new ScoreIngestionPipeline(service, 1, FAIL, failures::add);
+        givenWriterBlockedOn(first);
+        pipeline.submit(first, 2, 0);
+
+        // then
+        assertThatThrownBy(() -> pipeline.submit(first, 3, 0))
+            .isInstanceOf(RejectedExecutionException.class)
+            .hasMessage("Ingestion buffer is full");
+    }
+
+    @Test
+    void reports_updates_that_cannot_be_applied() throws InterruptedException {
+        // given
+        pipeline = new ScoreIngestionPipeline(service, 16, BLOCK, failures::add);
+
+        // when
+        pipeline.submit("unknown_id", 1, 0);
+        pipeline.flush();
+
+        // then
+        assertThat(failures).hasSize(1);
+        assertThat(failures.get(0).item).isEqualTo(scoreUpdate("unknown_id", 1, 0));
+        assertThat(failures.get(0).error).hasMessage("Match with id unknown_id not found");
+    }
+
+    @Test
+    void keeps_applying_updates_when_failure_handler_throws() throws InterruptedException {
+        // given
+        service.startMatch("TeamA", "TeamB");
+        pipeline = new ScoreIngestionPipeline(service, 16, BLOCK, failure -> {
+            failures.add(failure);
+            throw new IllegalStateException("handler failed");
+        });
+        pipeline.submit("unknown_id", 1, 0);
+        pipeline.flush();
+
+        // when
+        pipeline.submit("TeamA_TeamB", 2, 1);
+        pipeline.flush();
+
+        // then
+        assertThat(failures).hasSize(1);
+        assertThat(repository.get("TeamA_TeamB").homeTeamScore).isEqualTo(2);
+        assertThat(repository.get("TeamA_TeamB").awayTeamScore).isEqualTo(1);
+    }
+
+    @Test
+    void rejects_updates_after_close() throws InterruptedException {
+        // given
+        pipeline = new ScoreIngestionPipeline(service, 16, BLOCK, failures::add);
+
+        // when
+        pipeline.close();
+
+        // then
+        assertThatThrownBy(() -> pipeline.submit("TeamA_TeamB", 1, 0))
+            .isInstanceOf(RejectedExecutionException.class)
+            .hasMessage("Ingestion pipeline is closed");
+    }
+
+    /**
+     * Submits a first update and parks the writer thread inside its publication, so that later submissions pile up
+     * in the buffer until {@link #releaseWriter} is counted down.
+     */
+    private void givenWriterBlockedOn(String matchId) throws InterruptedException {
+        repository.addListener(event -> {
+            events.add(event);
+            writerBlocked.countDown();
+            try {
+                releaseWriter.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        pipeline.submit(matchId, 1, 0);
+        writerBlocked.await();
+    }
+}
@@ -0,0 +1,175 @@
+package org.ilzi.scorecard.util.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PersistentSortedSetTest {
+
+    private final PersistentSortedSet<Integer> empty = PersistentSortedSet.empty(Comparator.naturalOrder());
+
+    @Test
+    void keeps_elements_sorted() {
+        // when
+        final var set = empty.with(5).with(1).with(3);
+
+        // then
+        assertThat(set.asList()).containsExactly(1, 3, 5);
+        assertThat(set.size()).isEqualTo(3);
+    }
+
+    @Test
+    void builds_set_from_sorted_elements() {
+        // given
+        final var elements = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            elements.add(i * 2);
+        }
+
+        // when
+        final var set = PersistentSortedSet.ofSorted(Comparator.<Integer>naturalOrder(), elements);
+
+        // then
+        assertThat(set.asList()).containsExactlyElementsOf(elements);
+        assertThat(set.indexOf(998)).isEqualTo(499);
+        assertThat(set.with(1).without(0).get(0)).isEqualTo(1);
+    }
+
+    @Test
+    void fails_to_build_set_from_unsorted_elements() {
+        // then
+        assertThatThrownBy(() -> PersistentSortedSet.ofSorted(Comparator.<Integer>naturalOrder(), List.of(1, 3, 3)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Elements are not in strictly ascending order at index 2");
+    }
+
+    @Test
+    void counts_elements_less_than_any_value() {
+        // given
+        final var set = empty.with(10).with(20).with(30);
+
+        // then
+        assertThat(set.countLessThan(5)).isEqualTo(0);
+        assertThat(set.countLessThan(20)).isEqualTo(1);
+        assertThat(set.countLessThan(25)).isEqualTo(2);
+        assertThat(set.countLessThan(35)).isEqualTo(3);
+    }
+
+    @Test
+    void merges_sets_lazily_in_order() {
+        // given
+        final var first = empty.with(1).with(4).with(6);
+        final var second = empty.with(2).with(3);
+        final var third = empty.with(5);
+
+        // when
+        final var merged = new ArrayList<Integer>();
+        PersistentSortedSet.merge(List.of(first, second, empty, third)).forEachRemaining(merged::add);
+
+        // then
+        assertThat(merged).containsExactly(1, 2, 3, 4, 5, 6);
+    }
+
+    @Test
+    void does_not_modify_previous_versions() {
+        // given
+        final var first = empty.with(1).with(2);
+
+        // when
+        final var second = first.with(3).without(1);
+
+        // then
+        assertThat(first.asList()).containsExactly(1, 2);
+        assertThat(second.asList()).containsExactly(2, 3);
+    }
+
+    @Test
+    void replaces_element_comparing_equal() {
+        // given
+        final PersistentSortedSet<String> set = PersistentSortedSet.<String>empty(String.CASE_INSENSITIVE_ORDER)
+            .with("a");
+
+        // when
+        final var result = set.with("A");
+
+        // then
+        assertThat(result.asList()).containsExactly("A");
+    }
+
+    @Test
+    void returns_same_set_when_removing_missing_element() {
+        // given
+        final var set = empty.with(1);
+
+        // when
+        final var result = set.without(2);
+
+        // then
+        assertThat(result).isSameAs(set);
+    }
+
+    @Test
+    void gets_elements_by_index() {
+        // given
+        final var set = empty.with(30).with(10).with(20);
+
+        // then
+        assertThat(set.get(0)).isEqualTo(10);
+        assertThat(set.get(2)).isEqualTo(30);
+        assertThat(set.indexOf(20)).isEqualTo(1);
+        assertThat(set.indexOf(25)).isEqualTo(-1);
+        assertThatThrownBy(() -> set.get(3))
+            .isInstanceOf(IndexOutOfBoundsException.class)
+            .hasMessage("Index 3 out of bounds for size 3");
+    }
+
+    @Test
+    void iterates_from_index() {
+        // given
+        final var set = empty.with(1).with(2).with(3).with(4);
+
+        // when
+        final var result = new ArrayList<Integer>();
+        set.iterator(2).forEachRemaining(result::add);
+
+        // then
+        assertThat(result).containsExactly(3, 4);
+        assertThat(set.iterator(4).hasNext()).isFalse();
+    }
+
+    @Test
+    void matches_tree_set_after_random_updates() {
+        // given
+        final var random = new Random(42);
+        final var expected = new TreeSet<Integer>();
+        var set = empty;
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            final var value = random.nextInt(1_000);
+            if (random.nextBoolean()) {
+                expected.add(value);
+                set = set.with(value);
+            } else {
+                expected.remove(value);
+                set = set.without(value);
+            }
+        }
+
+        // then
+        assertThat(set.asList()).containsExactlyElementsOf(expected);
+        assertThat(set.size()).isEqualTo(expected.size());
+        final var byIndex = new ArrayList<Integer>();
+        for (int i = 0; i < set.size(); i++) {
+            byIndex.add(set.get(i));
+        }
+        assertThat(byIndex).containsExactlyElementsOf(List.copyOf(expected));
+    }
+}
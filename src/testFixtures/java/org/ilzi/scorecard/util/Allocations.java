@@ -0,0 +1,21 @@
+package org.ilzi.scorecard.util;
+
+import java.lang.management.ManagementFactory;
+
+public final class Allocations {
+
+    private Allocations() {
+    }
+
+    /**
+     * Bytes allocated by the current thread while running the action; the first call warms up the measurement.
+     */
+    public static long allocatedBytes(Runnable action) {
+        final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final var threadId = Thread.currentThread().threadId();
+        threads.getThreadAllocatedBytes(threadId);
+        final var before = threads.getThreadAllocatedBytes(threadId);
+        action.run();
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+}